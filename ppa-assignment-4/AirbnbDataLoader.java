@@ -1,50 +1,102 @@
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import com.opencsv.CSVReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.net.URISyntaxException;
 
 public class AirbnbDataLoader {
+
+    // The smallest chunk worth handing to its own thread (smaller files are parsed as a single chunk)
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    // The number of chunks per available core, so that uneven chunks still keep every core busy
+    private static final int CHUNKS_PER_CORE = 4;
+    // The largest window of the file that is memory-mapped at once while looking for row boundaries
+    private static final long SCAN_WINDOW_SIZE = 1 << 30;
+    // The characters opencsv uses by default to quote and escape fields
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte SEPARATOR = ',';
+    // The file, next to the csv file, in which the parsed rows are cached between startups
+    private static final String SNAPSHOT_FILE = "airbnb-london.snapshot";
+    // The number of fields of a row of the csv file
+    private static final int FIELD_COUNT = 15;
+    // The system property selecting where the listings are stored ("offheap" to store them outside of the heap)
+    private static final String STORE_PROPERTY = "airbnb.store";
+    // The system property selecting how the names, host names and dates of the last review are read ("lazy" to
+    // decode them from the csv file each time they are read, "cached" to also keep them once decoded)
+    private static final String TEXT_PROPERTY = "airbnb.text";
+    // The fields which are read lazily: the name, the host name and the date of the last review
+    private static final int[] LAZY_FIELDS = {1, 3, 11};
+
+    /**
+     * Whether the listings should be stored outside of the heap, as selected at startup with -Dairbnb.store=offheap.
+     * @return true to use loadOffHeap, false to use loadTable
+     */
+    public static boolean isOffHeapSelected() {
+        return "offheap".equalsIgnoreCase(System.getProperty(STORE_PROPERTY));
+    }
+
+    /**
+     * Whether the names, host names and dates of the last review should be read lazily from the csv file, as
+     * selected at startup with -Dairbnb.text=lazy or -Dairbnb.text=cached.
+     * @return true to use loadLazyTable, false to use loadTable
+     */
+    public static boolean isLazyTextSelected() {
+        return "lazy".equalsIgnoreCase(System.getProperty(TEXT_PROPERTY)) || isTextCacheSelected();
+    }
+
+    /**
+     * Whether the texts read lazily should be kept once decoded, as selected at startup with -Dairbnb.text=cached.
+     * @return the cacheText argument of loadLazyTable
+     */
+    public static boolean isTextCacheSelected() {
+        return "cached".equalsIgnoreCase(System.getProperty(TEXT_PROPERTY));
+    }
  
-    /** 
-     * Return an ArrayList containing the rows in the AirBnB London data set csv file.
+    /**
+     * Return an ArrayList containing the rows in the AirBnB London data set csv file (see loadTable).
      */
     public ArrayList<AirbnbListing> load() {
+        return new ArrayList<AirbnbListing>(loadTable().asList());
+    }
+
+    /** 
+     * Return a table containing the rows in the AirBnB London data set csv file, column by column.
+     * The file is memory-mapped and split into line-aligned chunks which are parsed in parallel,
+     * the rows are then merged back in the order in which they appear in the file.
+     * After a successful parse the rows are cached in a binary snapshot, which later loads
+     * use instead of the csv file for as long as the csv file is unchanged.
+     */
+    public ListingTable loadTable() {
         //System.out.print("Begin loading Airbnb london dataset...");
-        ArrayList<AirbnbListing> listings = new ArrayList<AirbnbListing>();
+        ListingTable listings = new ListingTable(new ArrayList<AirbnbListing>());
         try{
             URL url = getClass().getResource("airbnb-london.csv");
-            CSVReader reader = new CSVReader(new FileReader(new File(url.toURI()).getAbsolutePath()));
-            String [] line;
-            //skip the first row (column headers)
-            reader.readNext();
-            while ((line = reader.readNext()) != null) {
-                String id = line[0];
-                String name = line[1];
-                String host_id = line[2];
-                String host_name = line[3];
-                String neighbourhood = line[4];
-                double latitude = convertDouble(line[5]);
-                double longitude = convertDouble(line[6]);
-                String room_type = line[7];
-                int price = convertInt(line[8]);
-                int minimumNights = convertInt(line[9]);
-                int numberOfReviews = convertInt(line[10]);
-                String lastReview = line[11];
-                double reviewsPerMonth = convertDouble(line[12]);
-                int calculatedHostListingsCount = convertInt(line[13]);
-                int availability365 = convertInt(line[14]);
-
-                AirbnbListing listing = new AirbnbListing(id, name, host_id,
-                        host_name, neighbourhood, latitude, longitude, room_type,
-                        price, minimumNights, numberOfReviews, lastReview,
-                        reviewsPerMonth, calculatedHostListingsCount, availability365
-                    );
-                listings.add(listing);
+            File csvFile = new File(url.toURI());
+            ListingSnapshot snapshot = new ListingSnapshot(csvFile, new File(csvFile.getParentFile(), SNAPSHOT_FILE));
+            long start = System.nanoTime();
+            ListingTable snapshotListings = snapshot.read();
+            if (snapshotListings != null) {
+                logLoad("snapshot", snapshotListings.size(), System.nanoTime() - start);
+                return snapshotListings;
             }
-        } catch(IOException | URISyntaxException e){
+            start = System.nanoTime();
+            listings = loadTable(csvFile);
+            logLoad("csv", listings.size(), System.nanoTime() - start);
+            snapshot.write(listings);
+        } catch(IOException | URISyntaxException | UncheckedIOException e){
             System.out.println("Failure! Something went wrong");
             e.printStackTrace();
         }
@@ -52,6 +104,343 @@ public class AirbnbDataLoader {
         return listings;
     }
 
+    /**
+     * Return a table containing the rows of a csv file, parsed in parallel chunks (the snapshot is not used).
+     * @param csvFile the csv file to load
+     * @return the listings of the file, in the same order as the rows of the file
+     * @throws IOException if the file cannot be read
+     */
+    public ListingTable loadTable(File csvFile) throws IOException {
+        return new ListingTable(loadChunked(csvFile));
+    }
+
+    /**
+     * Return a table containing the rows in the AirBnB London data set csv file, whose names, host names and dates
+     * of the last review are only decoded from the csv file when they are read (see loadLazyTable(File, boolean)).
+     * @param cacheText whether the texts are kept once decoded
+     */
+    public ListingTable loadLazyTable(boolean cacheText) {
+        ListingTable listings = new ListingTable(new ArrayList<AirbnbListing>());
+        try{
+            URL url = getClass().getResource("airbnb-london.csv");
+            File csvFile = new File(url.toURI());
+            long start = System.nanoTime();
+            listings = loadLazyTable(csvFile, cacheText);
+            logLoad("csv (lazy text)", listings.size(), System.nanoTime() - start);
+        } catch(IOException | URISyntaxException | UncheckedIOException e){
+            System.out.println("Failure! Something went wrong");
+            e.printStackTrace();
+        }
+        return listings;
+    }
+
+    /**
+     * Return a table containing the rows of a csv file, whose names, host names and dates of the last review are
+     * only decoded from the csv file when they are read. The chunks of the file stay memory-mapped and the table
+     * keeps the position of these fields in the chunks instead of Strings, so they are never decoded at startup
+     * and, unless cached, never stay on the heap. The snapshot is not used, as it holds the decoded fields.
+     * @param csvFile the csv file to load, which must not change while the table is used
+     * @param cacheText whether the texts are kept once decoded
+     * @return the listings of the file, in the same order as the rows of the file
+     * @throws IOException if the file cannot be read
+     */
+    public ListingTable loadLazyTable(File csvFile, boolean cacheText) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = findChunkBoundaries(channel);
+            Charset charset = Charset.defaultCharset();
+
+            // parallel() keeps the encounter order, so the chunks come back in file order
+            List<LazyChunk> chunks = IntStream.range(0, boundaries.length - 1).parallel()
+                    .mapToObj(i -> parseLazyChunk(channel, i, boundaries[i], boundaries[i + 1], charset))
+                    .collect(Collectors.toList());
+
+            int size = 0;
+            for (LazyChunk chunk : chunks) {
+                size += chunk.listings.size();
+            }
+            // The mapped chunks stay valid once the channel is closed
+            ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+            ArrayList<AirbnbListing> listings = new ArrayList<>(size);
+            long[][] positions = new long[LAZY_FIELDS.length][size];
+            List<Map<Integer, String>> decoded = new ArrayList<>();
+            for (int field = 0; field < LAZY_FIELDS.length; field++) {
+                decoded.add(new HashMap<>());
+            }
+            for (LazyChunk chunk : chunks) {
+                int firstRow = listings.size();
+                buffers[chunk.number] = chunk.buffer;
+                listings.addAll(chunk.listings);
+                for (int row = 0; row < chunk.listings.size(); row++) {
+                    for (int field = 0; field < LAZY_FIELDS.length; field++) {
+                        long position = chunk.positions[row * LAZY_FIELDS.length + field];
+                        positions[field][firstRow + row] = position;
+                        if (position == -1) {
+                            decoded.get(field).put(firstRow + row, chunk.decoded.get(row)[field]);
+                        }
+                    }
+                }
+            }
+
+            LazyTextColumn[] columns = new LazyTextColumn[LAZY_FIELDS.length];
+            for (int field = 0; field < LAZY_FIELDS.length; field++) {
+                columns[field] = new LazyTextColumn(buffers, charset, positions[field], decoded.get(field), cacheText);
+            }
+            return new ListingTable(listings, columns[0], columns[1], columns[2]);
+        }
+    }
+
+    /**
+     * Return a store containing the rows in the AirBnB London data set csv file, kept outside of the heap.
+     * The csv file is parsed in parallel chunks as in loadTable, and each chunk is moved into the store as soon as
+     * it is parsed, so that the heap only ever holds a few chunks. The snapshot is not used, it is read on the heap.
+     */
+    public OffHeapListingStore loadOffHeap() {
+        OffHeapListingStore listings = new OffHeapListingStore();
+        try{
+            URL url = getClass().getResource("airbnb-london.csv");
+            File csvFile = new File(url.toURI());
+            long start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+                long[] boundaries = findChunkBoundaries(channel);
+                Charset charset = Charset.defaultCharset();
+                // forEachOrdered adds the chunks in file order and releases each chunk once it has been added
+                IntStream.range(0, boundaries.length - 1).parallel()
+                        .mapToObj(i -> parseChunk(channel, boundaries[i], boundaries[i + 1], charset))
+                        .forEachOrdered(listings::addAll);
+            }
+            logLoad("csv (off-heap)", listings.size(), System.nanoTime() - start);
+        } catch(IOException | URISyntaxException | UncheckedIOException e){
+            System.out.println("Failure! Something went wrong");
+            e.printStackTrace();
+        }
+        return listings;
+    }
+
+    /**
+     * Parse the csv file in parallel, one chunk of complete rows per task.
+     * @param csvFile the csv file to load
+     * @return the listings of the file, in the same order as the rows of the file
+     * @throws IOException if the file cannot be read
+     */
+    private ArrayList<AirbnbListing> loadChunked(File csvFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            long[] boundaries = findChunkBoundaries(channel);
+            Charset charset = Charset.defaultCharset();
+
+            // parallel() keeps the encounter order, so the chunks come back in file order
+            List<List<AirbnbListing>> chunks = IntStream.range(0, boundaries.length - 1).parallel()
+                    .mapToObj(i -> parseChunk(channel, boundaries[i], boundaries[i + 1], charset))
+                    .collect(Collectors.toList());
+
+            int size = 0;
+            for (List<AirbnbListing> chunk : chunks) {
+                size += chunk.size();
+            }
+            ArrayList<AirbnbListing> listings = new ArrayList<>(size);
+            for (List<AirbnbListing> chunk : chunks) {
+                listings.addAll(chunk);
+            }
+            return listings;
+        }
+    }
+
+    /**
+     * Find the offsets at which the file can be split into chunks of complete rows.
+     * The first offset is the end of the header row and the last offset is the end of the file.
+     * A line break inside a quoted field does not end a row, so the quote state is tracked
+     * the same way opencsv tracks it (including escaped quotes).
+     * @param channel the channel of the csv file
+     * @return the sorted chunk boundaries
+     * @throws IOException if the file cannot be mapped
+     */
+    private long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunkCount = (int) Math.max(1, Math.min(
+                (long) Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CORE, size / MIN_CHUNK_SIZE));
+        long chunkSize = Math.max(1, size / chunkCount);
+
+        List<Long> boundaries = new ArrayList<>();
+        long nextTarget = -1; // Any row end is accepted until the header has been skipped
+        boolean inQuotes = false;
+        boolean inField = false;
+        boolean escaped = false;
+
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_SIZE) {
+            long windowSize = Math.min(SCAN_WINDOW_SIZE, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for (int i = 0; i < windowSize; i++) {
+                byte b = window.get(i);
+                if (escaped) {
+                    escaped = false;
+                    if (b == QUOTE || b == ESCAPE) {
+                        continue;
+                    }
+                }
+                if (b == ESCAPE && (inQuotes || inField)) {
+                    escaped = true;
+                } else if (b == QUOTE) {
+                    inQuotes = !inQuotes;
+                    inField = !inField;
+                } else if (b == SEPARATOR && !inQuotes) {
+                    inField = false;
+                } else if (b == '\n' && !inQuotes) {
+                    inField = false;
+                    long rowEnd = windowStart + i + 1;
+                    if (rowEnd >= nextTarget) {
+                        boundaries.add(rowEnd);
+                        nextTarget = rowEnd + chunkSize;
+                    }
+                } else if (!inQuotes && b != '\r') {
+                    inField = true;
+                }
+            }
+        }
+
+        if (boundaries.isEmpty() || boundaries.get(boundaries.size() - 1) < size) {
+            boundaries.add(size);
+        }
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Parse one chunk of complete rows of the csv file.
+     * @param channel the channel of the csv file
+     * @param start the offset of the first byte of the chunk
+     * @param end the offset after the last byte of the chunk
+     * @param charset the charset used to decode the file
+     * @return the listings of the chunk, in file order
+     */
+    private List<AirbnbListing> parseChunk(FileChannel channel, long start, long end, Charset charset) {
+        List<AirbnbListing> listings = new ArrayList<>();
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            // The rows are read from the bytes of the file: no String is created for the numeric fields
+            CsvRowScanner scanner = new CsvRowScanner(buffer, charset, FIELD_COUNT);
+            while (scanner.nextRow()) {
+                listings.add(scanner.isSimple() ? createListing(scanner) : createListing(scanner.getRow()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return listings;
+    }
+
+    /**
+     * Parse one chunk of complete rows of the csv file, keeping the positions of the fields read lazily instead of
+     * decoding them.
+     * @param channel the channel of the csv file
+     * @param number the number of the chunk in the file
+     * @param start the offset of the first byte of the chunk
+     * @param end the offset after the last byte of the chunk
+     * @param charset the charset used to decode the file
+     * @return the listings of the chunk, in file order, without the fields read lazily
+     */
+    private LazyChunk parseLazyChunk(FileChannel channel, int number, long start, long end, Charset charset) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            LazyChunk chunk = new LazyChunk(number, buffer);
+            CsvRowScanner scanner = new CsvRowScanner(buffer, charset, FIELD_COUNT);
+            while (scanner.nextRow()) {
+                String[] line = scanner.getRow();
+                String[] texts = null;
+                for (int field = 0; field < LAZY_FIELDS.length; field++) {
+                    long position = -1;
+                    if (scanner.isSimple()) {
+                        position = LazyTextColumn.position(number, scanner.getFieldStart(LAZY_FIELDS[field]),
+                                scanner.getFieldEnd(LAZY_FIELDS[field]));
+                    }
+                    if (position == -1) {
+                        // A field which opencsv had to parse, or too long to be stored as a position
+                        if (texts == null) {
+                            texts = new String[LAZY_FIELDS.length];
+                            chunk.decoded.put(chunk.listings.size(), texts);
+                        }
+                        texts[field] = line != null ? line[LAZY_FIELDS[field]]
+                                : scanner.getString(LAZY_FIELDS[field]);
+                    }
+                    chunk.addPosition(position);
+                }
+                chunk.listings.add(scanner.isSimple() ? createLazyListing(scanner) : createListing(line));
+            }
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create a listing from the fields of one row of the csv file, parsing the numeric fields from its bytes.
+     * Its name, host name and date of the last review are not decoded (they are null).
+     * @param row the scanner positioned on the row
+     * @return the listing described by the row
+     */
+    private AirbnbListing createLazyListing(CsvRowScanner row) {
+        return new ListingRecord(row.getString(0), null, row.getString(2),
+                null, row.getString(4), row.getDouble(5), row.getDouble(6), row.getString(7),
+                row.getInt(8), row.getInt(9), row.getInt(10), null,
+                row.getDouble(12), row.getInt(13), row.getInt(14)
+            );
+    }
+
+    /**
+     * Create a listing from the fields of one row of the csv file, parsing the numeric fields from its bytes.
+     * @param row the scanner positioned on the row
+     * @return the listing described by the row
+     */
+    private AirbnbListing createListing(CsvRowScanner row) {
+        return new ListingRecord(row.getString(0), row.getString(1), row.getString(2),
+                row.getString(3), row.getString(4), row.getDouble(5), row.getDouble(6), row.getString(7),
+                row.getInt(8), row.getInt(9), row.getInt(10), row.getString(11),
+                row.getDouble(12), row.getInt(13), row.getInt(14)
+            );
+    }
+
+    /**
+     * Create a listing from the fields of one row of the csv file.
+     * @param line the fields of the row
+     * @return the listing described by the row
+     */
+    private AirbnbListing createListing(String[] line) {
+        String id = line[0];
+        String name = line[1];
+        String host_id = line[2];
+        String host_name = line[3];
+        String neighbourhood = line[4];
+        double latitude = convertDouble(line[5]);
+        double longitude = convertDouble(line[6]);
+        String room_type = line[7];
+        int price = convertInt(line[8]);
+        int minimumNights = convertInt(line[9]);
+        int numberOfReviews = convertInt(line[10]);
+        String lastReview = line[11];
+        double reviewsPerMonth = convertDouble(line[12]);
+        int calculatedHostListingsCount = convertInt(line[13]);
+        int availability365 = convertInt(line[14]);
+
+        return new ListingRecord(id, name, host_id,
+                host_name, neighbourhood, latitude, longitude, room_type,
+                price, minimumNights, numberOfReviews, lastReview,
+                reviewsPerMonth, calculatedHostListingsCount, availability365
+            );
+    }
+
+    /**
+     * Print how long the dataset took to load and the resulting throughput.
+     * @param source where the rows were loaded from
+     * @param rows the number of loaded rows
+     * @param elapsedNanos the time taken to load the rows, in nanoseconds
+     */
+    private void logLoad(String source, int rows, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long rowsPerSecond = seconds > 0 ? Math.round(rows / seconds) : rows;
+        System.out.println("Loaded " + rows + " records from " + source + " in "
+                + Math.round(elapsedNanos / 1e6) + " ms (" + rowsPerSecond + " rows/s)");
+    }
+
     /**
      *
      * @param doubleString the string to be converted to Double type
@@ -76,6 +465,33 @@ public class AirbnbDataLoader {
         return -1;
     }
 
+    /**
+     * The rows of a chunk of the csv file parsed by parseLazyChunk.
+     */
+    private static class LazyChunk {
 
+        // The number of the chunk in the file
+        private int number;
+        // The memory-mapped chunk
+        private MappedByteBuffer buffer;
+        // The listings of the chunk, without the fields read lazily
+        private List<AirbnbListing> listings = new ArrayList<>();
+        // The positions of the fields read lazily, row after row (-1 for a field kept decoded)
+        private long[] positions = new long[1024];
+        private int positionCount;
+        // The fields kept decoded, by row of the chunk (null for a field stored as a position)
+        private Map<Integer, String[]> decoded = new HashMap<>();
+
+        private LazyChunk(int number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
 
+        private void addPosition(long position) {
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * positions.length);
+            }
+            positions[positionCount++] = position;
+        }
+    }
 }
@@ -0,0 +1,139 @@
+import com.opencsv.CSVReader;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AirbnbDataLoaderTest {
+
+    // The names written in the csv file: quoted separators, doubled and escaped quotes, line breaks in quotes
+    private static final String[] NAMES = {
+            "Flat", "\"Cosy, bright\"", "\"The \"\"best\"\" room\"", "\"Two\nlines\"", "\"Three\r\nlines,\nhere\"",
+            "Back\\\\slash", "\"Say \\\"hi\\\"\"", "\"\"", "\"\n\"", "Caf\u00e9"
+    };
+
+    /**
+     * Test that loading a csv file of several chunks gives the listings opencsv reads from it, with the same
+     * conversions of the numeric fields as the loader made before the file was split into chunks.
+     */
+    @Test
+    public void loadTableEqualsOpencsv() throws IOException {
+        File csvFile = writeCsv(80000, 11);
+        try {
+            // Larger than 4 chunks of the smallest chunk size
+            assertTrue(csvFile.length() > 4 << 20);
+            assertListingsEqual(csvFile, new AirbnbDataLoader().loadTable(csvFile).asList());
+        } finally {
+            csvFile.delete();
+        }
+    }
+
+    /**
+     * Test that loading a csv file of several chunks with lazy texts gives the listings opencsv reads from it.
+     */
+    @Test
+    public void loadLazyTableEqualsOpencsv() throws IOException {
+        File csvFile = writeCsv(80000, 13);
+        try {
+            assertListingsEqual(csvFile, new AirbnbDataLoader().loadLazyTable(csvFile, false).asList());
+        } finally {
+            csvFile.delete();
+        }
+    }
+
+    /**
+     * Compare the listings loaded from a csv file, field by field, with the rows opencsv reads from it.
+     */
+    private static void assertListingsEqual(File csvFile, List<AirbnbListing> listings) throws IOException {
+        CSVReader reader = new CSVReader(new FileReader(csvFile.getAbsolutePath()));
+        reader.readNext();
+        String[] line;
+        int row = 0;
+        while ((line = reader.readNext()) != null) {
+            AirbnbListing listing = listings.get(row);
+            String message = "row " + row;
+            assertEquals(message, line[0], listing.getId());
+            assertEquals(message, line[1], listing.getName());
+            assertEquals(message, line[2], listing.getHost_id());
+            assertEquals(message, line[3], listing.getHost_name());
+            assertEquals(message, line[4], listing.getNeighbourhood());
+            assertEquals(message, convertDouble(line[5]), listing.getLatitude(), 0);
+            assertEquals(message, convertDouble(line[6]), listing.getLongitude(), 0);
+            assertEquals(message, line[7], listing.getRoom_type());
+            assertEquals(message, convertInt(line[8]), listing.getPrice());
+            assertEquals(message, convertInt(line[9]), listing.getMinimumNights());
+            assertEquals(message, convertInt(line[10]), listing.getNumberOfReviews());
+            assertEquals(message, line[11], listing.getLastReview());
+            assertEquals(message, convertDouble(line[12]), listing.getReviewsPerMonth(), 0);
+            assertEquals(message, convertInt(line[13]), listing.getCalculatedHostListingsCount());
+            assertEquals(message, convertInt(line[14]), listing.getAvailability365());
+            row++;
+        }
+        reader.close();
+        assertEquals(row, listings.size());
+    }
+
+    /**
+     * Write a csv file of several MB (several chunks), mixing line endings, quoted fields and empty numbers.
+     */
+    private static File writeCsv(int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        File csvFile = File.createTempFile("airbnb", ".csv");
+        String[] boroughs = SyntheticListings.BOROUGHS;
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(csvFile), Charset.defaultCharset()))) {
+            writer.write("id,name,host_id,host_name,neighbourhood,latitude,longitude,room_type,price,"
+                    + "minimum_nights,number_of_reviews,last_review,reviews_per_month,"
+                    + "calculated_host_listings_count,availability_365");
+            for (int i = 0; i < rows; i++) {
+                writer.write(random.nextBoolean() ? "\n" : "\r\n");
+                writer.write(i + "," + NAMES[random.nextInt(NAMES.length)] + "," + random.nextInt(100000) + ","
+                        + NAMES[random.nextInt(NAMES.length)] + ",\"" + boroughs[i % boroughs.length] + "\","
+                        + (51 + random.nextDouble()) + "," + (-random.nextDouble()) + ",Private room,"
+                        + number(random, 1000) + "," + number(random, 30) + "," + number(random, 500) + ","
+                        + (random.nextBoolean() ? "2019-0" + (1 + random.nextInt(9)) + "-15" : "") + ","
+                        + (random.nextInt(4) == 0 ? " " : String.valueOf(random.nextInt(500) / 100.0)) + ","
+                        + number(random, 10) + "," + number(random, 366));
+            }
+        }
+        return csvFile;
+    }
+
+    /**
+     * Get an integer field: usually a number, sometimes empty or blank.
+     */
+    private static String number(Random random, int bound) {
+        int kind = random.nextInt(10);
+        return kind == 0 ? "" : kind == 1 ? " " : String.valueOf(random.nextInt(bound));
+    }
+
+    /**
+     * The conversion of the decimal fields made by the loader when it read the rows one by one with opencsv.
+     */
+    private static double convertDouble(String doubleString) {
+        if (doubleString != null && !doubleString.trim().equals("")) {
+            return Double.parseDouble(doubleString);
+        }
+        return -1.0;
+    }
+
+    /**
+     * The conversion of the integer fields made by the loader when it read the rows one by one with opencsv.
+     */
+    private static int convertInt(String intString) {
+        if (intString != null && !intString.trim().equals("")) {
+            return Integer.parseInt(intString);
+        }
+        return -1;
+    }
+}
@@ -1,171 +1,65 @@
- 
-
 /**
  * Represents one listing of a property for rental on Airbnb.
- * This is essentially one row in the data table. Each column
- * has a corresponding field.
+ * This is essentially one row in the data table. The class holds no field, so that a listing can either hold
+ * its fields (see ListingRecord) or read them from the columns of a table (see ListingRow).
  */ 
 
-public class AirbnbListing {
-    /**
-     * The id and name of the individual property
-     */
-    private String id;
-    private String name;
-    /**
-     * The id and name of the host for this listing.
-     * Each listing has only one host, but one host may
-     * list many properties.
-     */
-    private String host_id;
-    private String host_name;
-
-    /**
-     * The grouped location to where the listed property is situated.
-     * For this data set, it is a london borough.
-     */
-    private String neighbourhood;
-
-    /**
-     * The location on a map where the property is situated.
-     */
-    private double latitude;
-    private double longitude;
-
-    /**
-     * The type of property, either "Private room" or "Entire Home/apt".
-     */
-    private String room_type;
-
-    /**
-     * The price per night's stay
-     */
-    private int price;
+public abstract class AirbnbListing {
 
     /**
-     * The minimum number of nights the listed property must be booked for.
+     * Create a listing whose fields are provided by a subclass.
      */
-    private int minimumNights;
-    private int numberOfReviews;
-
-    /**
-     * The date of the last review, but as a String
-     */
-    private String lastReview;
-    private double reviewsPerMonth;
-
-    /**
-     * The total number of listings the host holds across AirBnB
-     */
-    private int calculatedHostListingsCount;
-    /**
-     * The total number of days in the year that the property is available for
-     */
-    private int availability365;
-
-    public AirbnbListing(String id, String name, String host_id,
-                         String host_name, String neighbourhood, double latitude,
-                         double longitude, String room_type, int price,
-                         int minimumNights, int numberOfReviews, String lastReview,
-                         double reviewsPerMonth, int calculatedHostListingsCount, int availability365) {
-        this.id = id;
-        this.name = name;
-        this.host_id = host_id;
-        this.host_name = host_name;
-        this.neighbourhood = neighbourhood;
-        this.latitude = latitude;
-        this.longitude = longitude;
-        this.room_type = room_type;
-        this.price = price;
-        this.minimumNights = minimumNights;
-        this.numberOfReviews = numberOfReviews;
-        this.lastReview = lastReview;
-        this.reviewsPerMonth = reviewsPerMonth;
-        this.calculatedHostListingsCount = calculatedHostListingsCount;
-        this.availability365 = availability365;
+    protected AirbnbListing() {
     }
 
+    public abstract String getId();
 
-    public String getId() {
-        return id;
-    }
+    public abstract String getName();
 
-    public String getName() {
-        return name;
-    }
+    public abstract String getHost_id();
 
-    public String getHost_id() {
-        return host_id;
-    }
+    public abstract String getHost_name();
 
-    public String getHost_name() {
-        return host_name;
-    }
+    public abstract String getNeighbourhood();
 
-    public String getNeighbourhood() {
-        return neighbourhood;
-    }
+    public abstract double getLatitude();
 
-    public double getLatitude() {
-        return latitude;
-    }
+    public abstract double getLongitude();
 
-    public double getLongitude() {
-        return longitude;
-    }
+    public abstract String getRoom_type();
 
-    public String getRoom_type() {
-        return room_type;
-    }
+    public abstract int getPrice();
 
-    public int getPrice() {
-        return price;
-    }
+    public abstract int getMinimumNights();
 
-    public int getMinimumNights() {
-        return minimumNights;
-    }
+    public abstract int getNumberOfReviews();
 
-    public int getNumberOfReviews() {
-        return numberOfReviews;
-    }
-
-    public String getLastReview() {
-        return lastReview;
-    }
+    public abstract String getLastReview();
 
-    public double getReviewsPerMonth() {
-        return reviewsPerMonth;
-    }
+    public abstract double getReviewsPerMonth();
 
-    public int getCalculatedHostListingsCount() {
-        return calculatedHostListingsCount;
-    }
+    public abstract int getCalculatedHostListingsCount();
 
-    public int getAvailability365() {
-        return availability365;
-    }
+    public abstract int getAvailability365();
 
     @Override
     public String toString() {
         return "AirbnbListing{" +
-                "id='" + id + '\'' +
-                ", name='" + name + '\'' +
-                ", host_id='" + host_id + '\'' +
-                ", host_name='" + host_name + '\'' +
-                ", neighbourhood='" + neighbourhood + '\'' +
-                ", latitude=" + latitude +
-                ", longitude=" + longitude +
-                ", room_type='" + room_type + '\'' +
-                ", price=" + price +
-                ", minimumNights=" + minimumNights +
-                ", numberOfReviews=" + numberOfReviews +
-                ", lastReview='" + lastReview + '\'' +
-                ", reviewsPerMonth=" + reviewsPerMonth +
-                ", calculatedHostListingsCount=" + calculatedHostListingsCount +
-                ", availability365=" + availability365 +
+                "id='" + getId() + '\'' +
+                ", name='" + getName() + '\'' +
+                ", host_id='" + getHost_id() + '\'' +
+                ", host_name='" + getHost_name() + '\'' +
+                ", neighbourhood='" + getNeighbourhood() + '\'' +
+                ", latitude=" + getLatitude() +
+                ", longitude=" + getLongitude() +
+                ", room_type='" + getRoom_type() + '\'' +
+                ", price=" + getPrice() +
+                ", minimumNights=" + getMinimumNights() +
+                ", numberOfReviews=" + getNumberOfReviews() +
+                ", lastReview='" + getLastReview() + '\'' +
+                ", reviewsPerMonth=" + getReviewsPerMonth() +
+                ", calculatedHostListingsCount=" + getCalculatedHostListingsCount() +
+                ", availability365=" + getAvailability365() +
                 '}';
     }
-
-
 }
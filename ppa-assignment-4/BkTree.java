@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents a BK-tree over a vocabulary of words, to find the words within a small edit (Levenshtein) distance
+ * of a misspelt word without computing the distance to every word. Each child of a word is stored under its
+ * distance to that word, so by the triangle inequality only the children whose distance is within the
+ * tolerance of the distance to the searched word can lead to a match.
+ * @author Tihomir Stefanov
+ */
+public class BkTree {
+
+    // The words of the vocabulary, each word is a node of the tree (the first one is the root)
+    private String[] terms;
+    // The first child of each node, or -1
+    private int[] firstChild;
+    // The next child of the parent of each node, or -1
+    private int[] nextSibling;
+    // The distance between each node and its parent
+    private int[] parentDistance;
+
+    /**
+     * Build the tree of a vocabulary.
+     * @param terms the distinct words of the vocabulary
+     */
+    public BkTree(String[] terms)
+    {
+        this.terms = terms;
+        firstChild = new int[terms.length];
+        nextSibling = new int[terms.length];
+        parentDistance = new int[terms.length];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        for (int term = 1; term < terms.length; term++) {
+            insert(term);
+        }
+    }
+
+    /**
+     * Find the words of the vocabulary within a maximum distance of a word.
+     * @param word the searched word
+     * @param maxDistance the maximum edit distance
+     * @return for each word found, its position in the vocabulary and its distance to the searched word
+     */
+    public List<int[]> search(String word, int maxDistance)
+    {
+        List<int[]> matches = new ArrayList<>();
+        if (terms.length == 0) {
+            return matches;
+        }
+        int[] stack = new int[terms.length];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int distance = distance(word, terms[node]);
+            if (distance <= maxDistance) {
+                matches.add(new int[] {node, distance});
+            }
+            for (int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+                if (Math.abs(parentDistance[child] - distance) <= maxDistance) {
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Add a word of the vocabulary to the tree.
+     */
+    private void insert(int term)
+    {
+        int node = 0;
+        while (true) {
+            int distance = distance(terms[term], terms[node]);
+            if (distance == 0) {
+                return; // Already in the tree
+            }
+            int child = firstChild[node];
+            while (child != -1 && parentDistance[child] != distance) {
+                child = nextSibling[child];
+            }
+            if (child == -1) {
+                parentDistance[term] = distance;
+                nextSibling[term] = firstChild[node];
+                firstChild[node] = term;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Compute the Levenshtein distance between two words (the number of characters to insert, delete or replace
+     * to go from one to the other).
+     */
+    public static int distance(String first, String second)
+    {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+}
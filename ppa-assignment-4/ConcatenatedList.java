@@ -0,0 +1,50 @@
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents the results of a search shown one list after the other, without copying them: the exact matches
+ * then the approximate matches. Each result is read from its list only when it is accessed, so a ranking of the
+ * exact matches is not completed for the results that are never shown.
+ * @author Tihomir Stefanov
+ */
+public class ConcatenatedList extends AbstractList<AirbnbListing> implements RandomAccess {
+
+    // The results shown first
+    private List<AirbnbListing> first;
+    // The results shown after them
+    private List<AirbnbListing> second;
+
+    /**
+     * Create a read-only view of two lists, one after the other.
+     * @param first the results shown first
+     * @param second the results shown after them
+     */
+    public ConcatenatedList(List<AirbnbListing> first, List<AirbnbListing> second)
+    {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Get the result at the given position.
+     * @param index the position of the result
+     * @return the result, from the first list if the position is in it, else from the second list
+     */
+    @Override
+    public AirbnbListing get(int index)
+    {
+        int firstSize = first.size();
+        return index < firstSize ? first.get(index) : second.get(index - firstSize);
+    }
+
+    /**
+     * Get the number of results.
+     * @return the number of results of both lists
+     */
+    @Override
+    public int size()
+    {
+        return first.size() + second.size();
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConcatenatedListTest {
+
+    // The results shown first and the results shown after them
+    List<AirbnbListing> exactMatches = SyntheticListings.create(100, 1);
+    List<AirbnbListing> approximateMatches = SyntheticListings.create(3, 2);
+
+    /**
+     * Test that the view shows the first list then the second list, and cannot be modified.
+     */
+    @Test
+    public void firstThenSecond() {
+        List<AirbnbListing> results = new ConcatenatedList(exactMatches, approximateMatches);
+        assertEquals(103, results.size());
+        assertSame(exactMatches.get(0), results.get(0));
+        assertSame(exactMatches.get(99), results.get(99));
+        assertSame(approximateMatches.get(0), results.get(100));
+        assertSame(approximateMatches.get(2), results.get(102));
+        try {
+            results.add(exactMatches.get(0));
+            fail("The results can be modified");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test that reading the first screen of results only reads these results of a ranking.
+     */
+    @Test
+    public void onlyShownResultsAreRead() {
+        int[] furthestRead = {-1};
+        List<AirbnbListing> ranking = new AbstractList<AirbnbListing>() {
+            @Override
+            public AirbnbListing get(int index) {
+                furthestRead[0] = Math.max(furthestRead[0], index);
+                return exactMatches.get(index);
+            }
+
+            @Override
+            public int size() {
+                return exactMatches.size();
+            }
+        };
+        List<AirbnbListing> results = new ConcatenatedList(ranking, approximateMatches);
+        for (int i = 0; i < 10; i++) {
+            assertSame(exactMatches.get(i), results.get(i));
+        }
+        assertEquals(9, furthestRead[0]);
+
+        RelevancyRanking relevancy = new RelevancyRanking(exactMatches, "a");
+        assertEquals(Arrays.asList(relevancy.get(0), relevancy.get(1)),
+                new ConcatenatedList(relevancy, approximateMatches).subList(0, 2));
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import com.opencsv.CSVReader;
+
+/**
+ * Represents a scan of the rows of a chunk of the csv file, straight from the bytes of the chunk. A row is split
+ * into the offsets of its fields, the numeric fields are parsed from the bytes without creating any object, and only
+ * the text fields that are asked for are decoded into Strings. A row that the scanner cannot split on its own (a
+ * quoted field containing quotes or escapes, or an unexpected number of fields) is parsed by opencsv instead, so
+ * that every row is read as opencsv would read it.
+ * The charset of the file must encode the quote, the escape, the separator and the line breaks as single bytes
+ * (any ASCII compatible charset, such as UTF-8).
+ * @author Tihomir Stefanov
+ */
+public class CsvRowScanner {
+
+    // The characters opencsv uses by default to quote and escape fields
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte SEPARATOR = ',';
+    // The powers of ten which are exact doubles, to parse a decimal number with a single correctly rounded division
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    // The largest mantissa which is an exact double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // The chunk of complete rows
+    private ByteBuffer buffer;
+    // The charset used to decode the text fields
+    private Charset charset;
+    // The number of fields of a row
+    private int fieldCount;
+    // The offset of the next row
+    private int position;
+    // The offsets of the current row and of the end of the current row (line break excluded)
+    private int rowStart;
+    private int rowEnd;
+    // The offsets of the first byte and after the last byte of each field of the current row (quotes excluded)
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    // Whether the current row was split by the scanner (else its fields are in parsedRow)
+    private boolean simple;
+    // The fields of the current row as parsed by opencsv, when it is not simple
+    private String[] parsedRow;
+    // The buffer in which the text fields are copied to be decoded
+    private byte[] bytes = new byte[256];
+
+    /**
+     * Create a scanner of the rows of a chunk.
+     * @param buffer the chunk of complete rows, from its position to its limit
+     * @param charset the charset of the file
+     * @param fieldCount the number of fields of a row
+     */
+    public CsvRowScanner(ByteBuffer buffer, Charset charset, int fieldCount)
+    {
+        this.buffer = buffer;
+        this.charset = charset;
+        this.fieldCount = fieldCount;
+        position = buffer.position();
+        fieldStarts = new int[fieldCount];
+        fieldEnds = new int[fieldCount];
+    }
+
+    /**
+     * Move to the next row.
+     * @return true if there is a next row, false at the end of the chunk
+     */
+    public boolean nextRow()
+    {
+        int limit = buffer.limit();
+        if (position >= limit) {
+            return false;
+        }
+        rowStart = position;
+        simple = true;
+        parsedRow = null;
+        int field = 0;
+        int i = position;
+        while (true) {
+            int fieldStart = i;
+            int fieldEnd;
+            if (i < limit && buffer.get(i) == QUOTE) {
+                // A quoted field ends at the next quote, which must be followed by a separator or a line break
+                fieldStart = ++i;
+                while (i < limit && buffer.get(i) != QUOTE) {
+                    byte b = buffer.get(i);
+                    if (b == ESCAPE || b == '\n' || b == '\r') {
+                        // opencsv reads a quoted line break as a single '\n', leave such fields to opencsv
+                        simple = false;
+                    }
+                    i++;
+                }
+                fieldEnd = i;
+                if (i < limit) {
+                    i++;
+                } else {
+                    // No closing quote
+                    simple = false;
+                }
+                if (i < limit && buffer.get(i) != SEPARATOR && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                    // A doubled quote or text after the closing quote: leave the row to opencsv
+                    simple = false;
+                    break;
+                }
+            } else {
+                while (i < limit) {
+                    byte b = buffer.get(i);
+                    if (b == SEPARATOR || b == '\n') {
+                        break;
+                    }
+                    if (b == QUOTE || b == ESCAPE || (b == '\r' && i + 1 < limit && buffer.get(i + 1) != '\n')) {
+                        simple = false;
+                    }
+                    i++;
+                }
+                fieldEnd = i;
+                if (fieldEnd > fieldStart && buffer.get(fieldEnd - 1) == '\r'
+                        && (fieldEnd == limit || buffer.get(fieldEnd) == '\n')) {
+                    fieldEnd--;
+                }
+            }
+            if (field < fieldCount) {
+                fieldStarts[field] = fieldStart;
+                fieldEnds[field] = fieldEnd;
+            }
+            field++;
+            if (i < limit && buffer.get(i) == '\r') {
+                i++;
+            }
+            if (i >= limit || buffer.get(i) == '\n') {
+                break;
+            }
+            i++;
+        }
+        rowEnd = i;
+        if (rowEnd > rowStart && buffer.get(rowEnd - 1) == '\r') {
+            rowEnd--;
+        }
+        position = Math.min(limit, i + 1);
+        if (!simple) {
+            // The row may span several lines when a quoted field contains a line break
+            rowEnd = skipToRowEnd(rowStart);
+            position = Math.min(limit, rowEnd + 1);
+        }
+        if (field != fieldCount) {
+            simple = false;
+        }
+        if (!simple) {
+            parsedRow = parseWithOpencsv();
+        }
+        return true;
+    }
+
+    /**
+     * Whether the current row was split by the scanner. Otherwise its fields are parsed by opencsv (see getRow).
+     * @return true if the fields can be read with the getters of the scanner
+     */
+    public boolean isSimple()
+    {
+        return simple;
+    }
+
+    /**
+     * Get the fields of the current row as parsed by opencsv, when the row is not simple.
+     * @return the fields of the row, or null if the row is simple
+     */
+    public String[] getRow()
+    {
+        return parsedRow;
+    }
+
+    /**
+     * Get the offset of the first byte of a field of the current row (after its opening quote).
+     * @param field the position of the field in the row
+     * @return the offset of the field in the chunk
+     */
+    public int getFieldStart(int field)
+    {
+        return fieldStarts[field];
+    }
+
+    /**
+     * Get the offset after the last byte of a field of the current row (before its closing quote).
+     * @param field the position of the field in the row
+     * @return the offset of the end of the field in the chunk
+     */
+    public int getFieldEnd(int field)
+    {
+        return fieldEnds[field];
+    }
+
+    /**
+     * Decode a text field of the current row.
+     * @param field the position of the field in the row
+     * @return the text of the field
+     */
+    public String getString(int field)
+    {
+        return decode(buffer, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Parse an integer field of the current row, without creating any object.
+     * @param field the position of the field in the row
+     * @return the value of the field, or -1 if the field is empty or just whitespace
+     * @throws NumberFormatException if the field is not an integer
+     */
+    public int getInt(int field)
+    {
+        return parseInt(buffer, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Parse a decimal field of the current row, without creating any object for plain decimal numbers.
+     * @param field the position of the field in the row
+     * @return the value of the field, or -1.0 if the field is empty or just whitespace
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field)
+    {
+        return parseDouble(buffer, fieldStarts[field], fieldEnds[field]);
+    }
+
+    /**
+     * Decode the bytes of a text field.
+     * @param buffer the bytes of the file
+     * @param start the offset of the first byte of the field
+     * @param end the offset after the last byte of the field
+     * @return the text of the field
+     */
+    public String decode(ByteBuffer buffer, int start, int end)
+    {
+        int length = end - start;
+        if (length > bytes.length) {
+            bytes = new byte[Math.max(length, 2 * bytes.length)];
+        }
+        buffer.get(start, bytes, 0, length);
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * Parse an integer from bytes, as AirbnbDataLoader.convertInt parses it from a String.
+     * @param buffer the bytes of the file
+     * @param start the offset of the first byte of the field
+     * @param end the offset after the last byte of the field
+     * @return the value of the field, or -1 if the field is empty or just whitespace
+     * @throws NumberFormatException if the field is not an integer
+     */
+    public static int parseInt(ByteBuffer buffer, int start, int end)
+    {
+        if (isBlank(buffer, start, end)) {
+            return -1;
+        }
+        int i = start;
+        boolean negative = buffer.get(i) == '-';
+        if (negative || buffer.get(i) == '+') {
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            // Too long to be sure it fits in an int without overflow checks
+            return Integer.parseInt(asString(buffer, start, end));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(asString(buffer, start, end));
+            }
+            value = 10 * value + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a decimal number from bytes, as AirbnbDataLoader.convertDouble parses it from a String. A plain decimal
+     * number (digits with an optional sign and decimal point) whose digits fit in an exact double is the division
+     * of two exact doubles, which is correctly rounded like Double.parseDouble. Other numbers use Double.parseDouble.
+     * @param buffer the bytes of the file
+     * @param start the offset of the first byte of the field
+     * @param end the offset after the last byte of the field
+     * @return the value of the field, or -1.0 if the field is empty or just whitespace
+     * @throws NumberFormatException if the field is not a number
+     */
+    public static double parseDouble(ByteBuffer buffer, int start, int end)
+    {
+        if (isBlank(buffer, start, end)) {
+            return -1.0;
+        }
+        int i = start;
+        boolean negative = buffer.get(i) == '-';
+        if (negative || buffer.get(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9' && mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                return Double.parseDouble(asString(buffer, start, end));
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(asString(buffer, start, end));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Whether a field is empty or just whitespace (as String.trim() sees it).
+     */
+    private static boolean isBlank(ByteBuffer buffer, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the bytes of a field as a String, for the rare fields that are parsed with the methods of the JDK.
+     */
+    private static String asString(ByteBuffer buffer, int start, int end)
+    {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Find the end of the row starting at an offset, tracking the quotes the same way opencsv does.
+     * @param from the offset of the start of the row
+     * @return the offset of the line break ending the row (excluded from the row), or the end of the chunk
+     */
+    private int skipToRowEnd(int from)
+    {
+        int limit = buffer.limit();
+        boolean inQuotes = false;
+        boolean inField = false;
+        boolean escaped = false;
+        for (int i = from; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (escaped) {
+                escaped = false;
+                if (b == QUOTE || b == ESCAPE) {
+                    continue;
+                }
+            }
+            if (b == ESCAPE && (inQuotes || inField)) {
+                escaped = true;
+            } else if (b == QUOTE) {
+                inQuotes = !inQuotes;
+                inField = !inField;
+            } else if (b == SEPARATOR && !inQuotes) {
+                inField = false;
+            } else if (b == '\n' && !inQuotes) {
+                return i;
+            } else if (!inQuotes && b != '\r') {
+                inField = true;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Parse the current row with opencsv.
+     */
+    private String[] parseWithOpencsv()
+    {
+        try {
+            String[] row = new CSVReader(new StringReader(decode(buffer, rowStart, rowEnd))).readNext();
+            return row == null ? new String[] {""} : row;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import com.opencsv.CSVReader;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CsvRowScannerTest {
+
+    /**
+     * Test that the scanner reads the fields of every row as opencsv does, including the rows it leaves to opencsv.
+     */
+    @Test
+    public void fieldsEqualOpencsv() throws Exception {
+        String csv = "1,Flat,10,Anna,Enfield,51.6,-0.1,Private room,50,1,3,,0.5,1,100\n"
+                + "2,\"Cosy, bright\",11,Ben,Camden,51.5,-0.2,Entire home/apt,90,2,7,2019-01-15,1.5,1,200\r\n"
+                + "3,\"The \"\"best\"\" room\",12,Cleo,Camden,51.5,-0.1,Private room,40,1,0,,,1,10\n"
+                + "4,\"Two\nlines\",13,Dan,Hackney,51.5,-0.1,Private room,40,1,0,,,1,10\n"
+                + "5,Back\\\\slash,14,Eve,Hackney,51.5,-0.1,Shared room,30,1,0, ,,1,10\n"
+                + "6,H\u00f4tel,15,Fay,Hackney,51.5,-0.1,Shared room,30,1,0,,,1,10";
+        CSVReader reader = new CSVReader(new StringReader(csv));
+        CsvRowScanner scanner = new CsvRowScanner(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, 15);
+        int rows = 0;
+        String[] expected;
+        while ((expected = reader.readNext()) != null) {
+            assertTrue(scanner.nextRow());
+            for (int field = 0; field < expected.length; field++) {
+                String actual = scanner.isSimple() ? scanner.getString(field) : scanner.getRow()[field];
+                assertEquals(expected[field], actual);
+            }
+            rows++;
+        }
+        assertFalse(scanner.nextRow());
+        assertEquals(6, rows);
+    }
+
+    /**
+     * Test that the numeric fields are parsed from bytes as Integer.parseInt and Double.parseDouble parse them.
+     */
+    @Test
+    public void numbers() {
+        assertEquals(-1, parseInt(""));
+        assertEquals(-1, parseInt("  "));
+        assertEquals(1234, parseInt("1234"));
+        assertEquals(-56, parseInt("-56"));
+        assertEquals(Integer.MAX_VALUE, parseInt("2147483647"));
+        assertEquals(-1.0, parseDouble(""), 0);
+        assertEquals(-0.0, parseDouble("-0.0"), 0);
+        assertEquals(1e300, parseDouble("1e300"), 0);
+        assertEquals(0.5, parseDouble(".5"), 0);
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            String number = String.valueOf(random.nextInt(2000) - 1000) + "." + random.nextInt(100000000);
+            assertEquals(number, Double.parseDouble(number), parseDouble(number), 0);
+        }
+        try {
+            parseInt("12a");
+            fail("12a is not a number");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Parse an int with the scanner.
+     */
+    private int parseInt(String field) {
+        return CsvRowScanner.parseInt(ByteBuffer.wrap(field.getBytes(StandardCharsets.UTF_8)), 0, field.length());
+    }
+
+    /**
+     * Parse a double with the scanner.
+     */
+    private double parseDouble(String field) {
+        return CsvRowScanner.parseDouble(ByteBuffer.wrap(field.getBytes(StandardCharsets.UTF_8)), 0, field.length());
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Represents the measures of a set of properties aggregated by the listing cube: the number of properties,
+ * the totals of their prices, reviews, booking expenses (price x minimum nights) and availabilities, and the
+ * properties with the smallest and the largest booking expense.
+ * @author Tihomir Stefanov
+ */
+public class CubeAggregate {
+
+    // The number of properties
+    private int count;
+    // The total price
+    private long totalPrice;
+    // The total number of reviews
+    private long totalReviews;
+    // The total booking expense
+    private long totalExpense;
+    // The total availability (days per year)
+    private long totalAvailability;
+    // The property with the smallest booking expense, or null
+    private AirbnbListing cheapestProperty;
+    // The property with the largest booking expense, or null
+    private AirbnbListing mostExpensiveProperty;
+
+    /**
+     * Create the measures of a set of properties.
+     * @param count the number of properties
+     * @param totalPrice the total price
+     * @param totalReviews the total number of reviews
+     * @param totalExpense the total booking expense
+     * @param totalAvailability the total availability
+     * @param cheapestProperty the property with the smallest booking expense, or null
+     * @param mostExpensiveProperty the property with the largest booking expense, or null
+     */
+    public CubeAggregate(int count, long totalPrice, long totalReviews, long totalExpense, long totalAvailability,
+                         AirbnbListing cheapestProperty, AirbnbListing mostExpensiveProperty)
+    {
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.totalReviews = totalReviews;
+        this.totalExpense = totalExpense;
+        this.totalAvailability = totalAvailability;
+        this.cheapestProperty = cheapestProperty;
+        this.mostExpensiveProperty = mostExpensiveProperty;
+    }
+
+    /**
+     * Get the number of properties.
+     * @return the number of properties
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Get the total price of the properties.
+     * @return the total price
+     */
+    public long getTotalPrice()
+    {
+        return totalPrice;
+    }
+
+    /**
+     * Get the total number of reviews of the properties.
+     * @return the total number of reviews
+     */
+    public long getTotalReviews()
+    {
+        return totalReviews;
+    }
+
+    /**
+     * Get the total booking expense (price x minimum nights) of the properties.
+     * @return the total booking expense
+     */
+    public long getTotalExpense()
+    {
+        return totalExpense;
+    }
+
+    /**
+     * Get the total availability (days per year) of the properties.
+     * @return the total availability
+     */
+    public long getTotalAvailability()
+    {
+        return totalAvailability;
+    }
+
+    /**
+     * Get the average price of the properties.
+     * @return the average price, or NaN if there is no property
+     */
+    public double getAveragePrice()
+    {
+        return count == 0 ? Double.NaN : (double) totalPrice / count;
+    }
+
+    /**
+     * Get the average booking expense of the properties.
+     * @return the average booking expense, or NaN if there is no property
+     */
+    public double getAverageExpense()
+    {
+        return count == 0 ? Double.NaN : (double) totalExpense / count;
+    }
+
+    /**
+     * Get the property with the smallest booking expense (the first one in price order in case of a tie).
+     * @return the cheapest property, or null if there is no property
+     */
+    public AirbnbListing getCheapestProperty()
+    {
+        return cheapestProperty;
+    }
+
+    /**
+     * Get the property with the largest booking expense (the first one in price order in case of a tie).
+     * @return the most expensive property, or null if there is no property
+     */
+    public AirbnbListing getMostExpensiveProperty()
+    {
+        return mostExpensiveProperty;
+    }
+}
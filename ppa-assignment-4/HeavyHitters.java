@@ -0,0 +1,312 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents a summary of the most searched expressions, kept up to date as each search happens, using the
+ * Space-Saving algorithm: only a fixed number of expressions are counted; when a new expression arrives and all
+ * the counters are taken, it replaces the least searched expression and inherits its count (plus one). Any
+ * expression searched more often than (number of searches / capacity) times is guaranteed to be counted, and
+ * its count is over-estimated by at most the count it inherited.
+ * The summary can be checkpointed to a small file with the time of the last search it counts, so that a startup
+ * only replays the searches logged after the checkpoint.
+ * @author Tihomir Stefanov
+ */
+public class HeavyHitters {
+
+    // Identifies a checkpoint file ("HHCP")
+    private static final int MAGIC = 0x48484350;
+    // Version of the checkpoint format
+    private static final int VERSION = 1;
+
+    // The expression of each counter, or null if the counter is free
+    private String[] expressions;
+    // The count of each counter
+    private long[] counts;
+    // The over-estimation of the count of each counter (the count inherited from the replaced expression)
+    private long[] errors;
+    // The counter of each counted expression
+    private Map<String, Integer> countersByExpression = new HashMap<>();
+    // The counters in a binary min-heap by count, the least searched expression at the top
+    private int[] heap;
+    // The position of each counter in the heap
+    private int[] heapPositions;
+    // The number of counters taken
+    private int size;
+    // The counter with the highest count, or -1
+    private int mostSearched = -1;
+    // The time of the last search counted, in milliseconds since 1970, or Long.MIN_VALUE
+    private long lastTime = Long.MIN_VALUE;
+    // Held while a checkpoint is written, instead of the lock of the summary
+    private final Object checkpointLock = new Object();
+
+    /**
+     * Create an empty summary.
+     * @param capacity the number of expressions counted
+     */
+    public HeavyHitters(int capacity)
+    {
+        expressions = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+    }
+
+    /**
+     * Count a search.
+     * @param expression the searched expression
+     * @param time the time of the search, in milliseconds since 1970 (or -1 if unknown)
+     */
+    public synchronized void add(String expression, long time)
+    {
+        lastTime = Math.max(lastTime, time);
+        Integer counter = countersByExpression.get(expression);
+        boolean added = false;
+        if (counter == null) {
+            if (size < expressions.length) {
+                counter = size;
+                heap[size] = counter;
+                heapPositions[counter] = size;
+                size++;
+                added = true;
+            } else {
+                // Replace the least searched expression, which is at the top of the heap
+                counter = heap[0];
+                countersByExpression.remove(expressions[counter]);
+                errors[counter] = counts[counter];
+            }
+            expressions[counter] = expression;
+            countersByExpression.put(expression, counter);
+        }
+        counts[counter]++;
+        // A new counter starts at the bottom of the heap and has the lowest count, any other counter only grew
+        if (added) {
+            siftUp(heapPositions[counter]);
+        } else {
+            siftDown(heapPositions[counter]);
+        }
+        if (mostSearched < 0 || counts[counter] > counts[mostSearched]) {
+            mostSearched = counter;
+        }
+    }
+
+    /**
+     * Get the most searched expression.
+     * @return the most searched expression, or null if there was no search
+     */
+    public synchronized String getMostSearched()
+    {
+        return mostSearched < 0 ? null : expressions[mostSearched];
+    }
+
+    /**
+     * Get the count of an expression.
+     * @param expression a searched expression
+     * @return the number of searches of the expression (possibly over-estimated), or 0 if it is not counted
+     */
+    public synchronized long getCount(String expression)
+    {
+        Integer counter = countersByExpression.get(expression);
+        return counter == null ? 0 : counts[counter];
+    }
+
+    /**
+     * Get the counted expressions and their counts.
+     * @return the counts of the expressions, the most searched first
+     */
+    public synchronized Map<String, Long> getCounts()
+    {
+        Integer[] counters = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            counters[i] = i;
+        }
+        Arrays.sort(counters, (first, second) -> Long.compare(counts[second], counts[first]));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int counter : counters) {
+            result.put(expressions[counter], counts[counter]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the time of the last search counted.
+     * @return the time in milliseconds since 1970, or Long.MIN_VALUE if there was no search with a time
+     */
+    public synchronized long getLastTime()
+    {
+        return lastTime;
+    }
+
+    /**
+     * Build the summary of the searches of a log, from its checkpoint and the searches logged after it.
+     * If there is no usable checkpoint, the whole log is replayed.
+     * @param checkpointFile the checkpoint file
+     * @param searchLog the log of the searches
+     * @param capacity the number of expressions counted
+     * @return the summary of all the searches of the log
+     */
+    public static HeavyHitters load(File checkpointFile, SearchLog searchLog, int capacity)
+    {
+        HeavyHitters heavyHitters = read(checkpointFile, capacity);
+        if (heavyHitters == null) {
+            heavyHitters = new HeavyHitters(capacity);
+        }
+        for (String line : searchLog.readLinesAfter(heavyHitters.getLastTime())) {
+            heavyHitters.add(SearchLog.expressionOf(line), SearchLog.timeOf(line));
+        }
+        return heavyHitters;
+    }
+
+    /**
+     * Read a checkpoint.
+     * @return the summary, or null if the checkpoint is missing, corrupt or of another capacity
+     */
+    private static HeavyHitters read(File checkpointFile, int capacity)
+    {
+        if (!checkpointFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || input.readInt() != capacity) {
+                System.out.println("Search checkpoint has an unknown format, replaying the search log");
+                return null;
+            }
+            HeavyHitters heavyHitters = new HeavyHitters(capacity);
+            heavyHitters.lastTime = input.readLong();
+            int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                String expression = input.readUTF();
+                long count = input.readLong();
+                long error = input.readLong();
+                heavyHitters.restore(expression, count, error);
+            }
+            return heavyHitters;
+        } catch (EOFException e) {
+            System.out.println("Search checkpoint is truncated, replaying the search log");
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Search checkpoint could not be read (" + e + "), replaying the search log");
+            return null;
+        }
+    }
+
+    /**
+     * Write a checkpoint of the summary. The checkpoint is written to a temporary file first
+     * and then renamed, so that an interrupted write never leaves a corrupt checkpoint behind.
+     * The counters are copied under the lock of the summary and written outside of it, so that
+     * the searches counted meanwhile never wait for the file.
+     * @param checkpointFile the checkpoint file
+     */
+    public void write(File checkpointFile)
+    {
+        // Checkpoints are written one at a time, in the order of their copies
+        synchronized (checkpointLock) {
+            String[] checkpointExpressions;
+            long[] checkpointCounts;
+            long[] checkpointErrors;
+            long checkpointTime;
+            synchronized (this) {
+                checkpointExpressions = Arrays.copyOf(expressions, size);
+                checkpointCounts = Arrays.copyOf(counts, size);
+                checkpointErrors = Arrays.copyOf(errors, size);
+                checkpointTime = lastTime;
+            }
+
+            File tempFile = new File(checkpointFile.getPath() + ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeInt(expressions.length);
+                    output.writeLong(checkpointTime);
+                    output.writeInt(checkpointExpressions.length);
+                    for (int counter = 0; counter < checkpointExpressions.length; counter++) {
+                        output.writeUTF(checkpointExpressions[counter]);
+                        output.writeLong(checkpointCounts[counter]);
+                        output.writeLong(checkpointErrors[counter]);
+                    }
+                }
+                Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.out.println("Search checkpoint could not be written: " + e);
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Add a counter read from a checkpoint.
+     */
+    private void restore(String expression, long count, long error)
+    {
+        int counter = size++;
+        expressions[counter] = expression;
+        counts[counter] = count;
+        errors[counter] = error;
+        countersByExpression.put(expression, counter);
+        heap[counter] = counter;
+        heapPositions[counter] = counter;
+        siftUp(counter);
+        if (mostSearched < 0 || count > counts[mostSearched]) {
+            mostSearched = counter;
+        }
+    }
+
+    /**
+     * Move a counter of the heap down until its children have higher counts.
+     */
+    private void siftDown(int position)
+    {
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[position]] <= counts[heap[child]]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * Move a counter of the heap up until its parent has a lower count.
+     */
+    private void siftUp(int position)
+    {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Swap two counters of the heap.
+     */
+    private void swap(int first, int second)
+    {
+        int counter = heap[first];
+        heap[first] = heap[second];
+        heap[second] = counter;
+        heapPositions[heap[first]] = first;
+        heapPositions[heap[second]] = second;
+    }
+}
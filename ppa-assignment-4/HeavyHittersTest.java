@@ -0,0 +1,91 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HeavyHittersTest {
+
+    /**
+     * Test that the counts are exact while there are fewer expressions than counters.
+     */
+    @Test
+    public void exactCounts() {
+        HeavyHitters heavyHitters = new HeavyHitters(4);
+        assertNull(heavyHitters.getMostSearched());
+        for (String expression : new String[] {"pool", "flat", "pool", "garden", "flat", "pool"}) {
+            heavyHitters.add(expression, -1);
+        }
+        assertEquals("pool", heavyHitters.getMostSearched());
+        assertEquals(3, heavyHitters.getCount("pool"));
+        assertEquals(2, heavyHitters.getCount("flat"));
+        assertEquals(0, heavyHitters.getCount("loft"));
+        assertEquals("[pool, flat, garden]", heavyHitters.getCounts().keySet().toString());
+    }
+
+    /**
+     * Test that the most searched expression keeps its counter when more distinct expressions than counters arrive.
+     */
+    @Test
+    public void heavyHitterSurvivesEvictions() {
+        HeavyHitters heavyHitters = new HeavyHitters(3);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add("pool", i);
+        }
+        for (String expression : new String[] {"x", "y", "z", "w", "x"}) {
+            heavyHitters.add(expression, 100);
+        }
+        assertEquals("pool", heavyHitters.getMostSearched());
+        assertEquals(100, heavyHitters.getCount("pool"));
+        assertEquals("pool", heavyHitters.getCounts().keySet().iterator().next());
+        assertTrue(heavyHitters.getCount("z") < 100);
+    }
+
+    /**
+     * Test that a frequent expression is found among many rare ones, with more expressions than counters.
+     */
+    @Test
+    public void frequentExpressionAmongRareOnes() {
+        HeavyHitters heavyHitters = new HeavyHitters(16);
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            heavyHitters.add(i % 5 == 0 ? "cosy flat" : "rare " + random.nextInt(1000), i);
+        }
+        assertEquals("cosy flat", heavyHitters.getMostSearched());
+        assertTrue(heavyHitters.getCount("cosy flat") >= 2000);
+        assertEquals(9999, heavyHitters.getLastTime());
+    }
+
+    /**
+     * Test that loading from a checkpoint only replays the searches logged after it.
+     */
+    @Test
+    public void checkpointAndReplay() throws IOException {
+        File directory = Files.createTempDirectory("heavy-hitters").toFile();
+        File logFile = new File(directory, "search-words.txt");
+        File checkpointFile = new File(directory, "search-words.top");
+        Files.write(logFile.toPath(), "pool\npool\n".getBytes());
+
+        SearchLog log = new SearchLog(logFile, 1_000_000, 2);
+        HeavyHitters heavyHitters = HeavyHitters.load(checkpointFile, log, 8);
+        assertEquals(2, heavyHitters.getCount("pool"));
+        for (int time = 1; time <= 3; time++) {
+            log.log("flat", time);
+            heavyHitters.add("flat", time);
+        }
+        heavyHitters.write(checkpointFile);
+        log.log("flat", 4);
+        log.log("garden", 5);
+        log.close();
+
+        heavyHitters = HeavyHitters.load(checkpointFile, log, 8);
+        assertEquals("flat", heavyHitters.getMostSearched());
+        assertEquals(4, heavyHitters.getCount("flat"));
+        assertEquals(2, heavyHitters.getCount("pool"));
+        assertEquals(1, heavyHitters.getCount("garden"));
+        assertEquals(5, heavyHitters.getLastTime());
+    }
+}
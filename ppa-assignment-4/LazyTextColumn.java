@@ -0,0 +1,120 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a text field of the loaded properties which is only decoded from the memory-mapped csv file when it is
+ * read, such as the name of a property, which most of the application never reads. Each row keeps the position of
+ * its text in the file (the chunk, the offset and the length packed in a long) instead of a String. The decoded texts
+ * can be cached, so that a text is decoded once, or not, so that the texts never stay on the heap.
+ * The texts of the few rows that opencsv parsed instead of the scanner are kept decoded.
+ * @author Tihomir Stefanov
+ */
+public class LazyTextColumn {
+
+    // The layout of a position: the chunk in the high bits, then the offset in the chunk, then the length
+    private static final int CHUNK_SHIFT = 47;
+    private static final int OFFSET_SHIFT = 16;
+    private static final long OFFSET_MASK = (1L << 31) - 1;
+    private static final int MAX_LENGTH = (1 << 16) - 1;
+    private static final int MAX_CHUNKS = 1 << 16;
+    // The position stored for a text which is kept decoded
+    private static final long DECODED = -1;
+
+    // The memory-mapped chunks of the csv file
+    private ByteBuffer[] chunks;
+    // The charset of the csv file
+    private Charset charset;
+    // The position of the text of each row
+    private long[] positions;
+    // The texts which are kept decoded, by row
+    private Map<Integer, String> decoded;
+    // The texts decoded so far, by row, or null if the texts are not cached
+    private String[] cache;
+
+    /**
+     * Create a column of texts read from the chunks of a csv file.
+     * @param chunks the memory-mapped chunks of the csv file, which must stay unchanged
+     * @param charset the charset of the csv file
+     * @param positions the position of the text of each row (see position), or -1 if its text is in decoded
+     * @param decoded the texts of the rows whose position is -1, by row
+     * @param cached whether the texts are kept once decoded
+     */
+    public LazyTextColumn(ByteBuffer[] chunks, Charset charset, long[] positions, Map<Integer, String> decoded,
+                          boolean cached)
+    {
+        this.chunks = chunks;
+        this.charset = charset;
+        this.positions = positions;
+        this.decoded = decoded;
+        if (cached) {
+            cache = new String[positions.length];
+        }
+    }
+
+    /**
+     * Get the position of a text of a chunk, to store in a column.
+     * @param chunk the number of the chunk holding the text
+     * @param start the offset of the first byte of the text in the chunk
+     * @param end the offset after the last byte of the text in the chunk
+     * @return the position of the text, or -1 if it is too long or too far to be stored (it must then be decoded)
+     */
+    public static long position(int chunk, int start, int end)
+    {
+        if (chunk >= MAX_CHUNKS || end - start > MAX_LENGTH) {
+            return DECODED;
+        }
+        return ((long) chunk << CHUNK_SHIFT) | ((long) start << OFFSET_SHIFT) | (end - start);
+    }
+
+    /**
+     * Get the text of a row, decoding it from the csv file if it is not cached.
+     * @param row the position of the row
+     * @return the text of the row
+     */
+    public String get(int row)
+    {
+        String text = cache == null ? null : cache[row];
+        if (text != null) {
+            return text;
+        }
+        long position = positions[row];
+        if (position == DECODED) {
+            return decoded.get(row);
+        }
+        ByteBuffer chunk = chunks[(int) (position >>> CHUNK_SHIFT)];
+        byte[] bytes = new byte[(int) (position & MAX_LENGTH)];
+        chunk.get((int) ((position >>> OFFSET_SHIFT) & OFFSET_MASK), bytes);
+        text = new String(bytes, charset);
+        if (cache != null) {
+            cache[row] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Get the column with its rows in another order. The texts already cached stay cached.
+     * @param order the row of this column to put at each position of the new column
+     * @return the reordered column
+     */
+    public LazyTextColumn reorder(int[] order)
+    {
+        long[] reorderedPositions = new long[order.length];
+        Map<Integer, String> reorderedDecoded = new HashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            reorderedPositions[i] = positions[order[i]];
+            if (reorderedPositions[i] == DECODED) {
+                reorderedDecoded.put(i, decoded.get(order[i]));
+            }
+        }
+        LazyTextColumn reordered = new LazyTextColumn(chunks, charset, reorderedPositions, reorderedDecoded,
+                cache != null);
+        if (cache != null) {
+            for (int i = 0; i < order.length; i++) {
+                reordered.cache[i] = cache[order[i]];
+            }
+        }
+        return reordered;
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LazyTextColumnTest {
+
+    // The chunks of the csv file the texts are read from
+    ByteBuffer[] chunks = {
+            ByteBuffer.wrap("1,Cosy flat,Anna\n".getBytes(StandardCharsets.UTF_8)),
+            ByteBuffer.wrap("2,Caf\u00e9 room,Ben\n".getBytes(StandardCharsets.UTF_8))};
+
+    // The text of the last row, kept decoded
+    Map<Integer, String> decoded = new HashMap<>(Map.of(2, "Flat with a \"view\""));
+
+    // The positions of the names of the rows
+    long[] positions = {LazyTextColumn.position(0, 2, 11), LazyTextColumn.position(1, 2, 12), -1};
+
+    /**
+     * Test that the texts are decoded from the chunks, or taken from the decoded texts.
+     */
+    @Test
+    public void get() {
+        LazyTextColumn column = new LazyTextColumn(chunks, StandardCharsets.UTF_8, positions, decoded, false);
+        assertEquals("Cosy flat", column.get(0));
+        assertEquals("Caf\u00e9 room", column.get(1));
+        assertEquals("Flat with a \"view\"", column.get(2));
+        assertNotSame(column.get(0), column.get(0));
+    }
+
+    /**
+     * Test that a cached column decodes each text once.
+     */
+    @Test
+    public void cached() {
+        LazyTextColumn column = new LazyTextColumn(chunks, StandardCharsets.UTF_8, positions, decoded, true);
+        assertSame(column.get(1), column.get(1));
+        assertEquals("Caf\u00e9 room", column.get(1));
+    }
+
+    /**
+     * Test of the position() method, which refuses the texts too long to be stored as a position.
+     */
+    @Test
+    public void position() {
+        assertNotEquals(-1, LazyTextColumn.position(65_535, Integer.MAX_VALUE - 10, Integer.MAX_VALUE));
+        assertEquals(-1, LazyTextColumn.position(0, 0, 1 << 16));
+        assertEquals(-1, LazyTextColumn.position(1 << 16, 0, 1));
+    }
+
+    /**
+     * Test of the reorder() method, which keeps the decoded and the cached texts.
+     */
+    @Test
+    public void reorder() {
+        LazyTextColumn column = new LazyTextColumn(chunks, StandardCharsets.UTF_8, positions, decoded, true);
+        String cached = column.get(0);
+        LazyTextColumn reordered = column.reorder(new int[] {2, 0, 1});
+        assertEquals("Flat with a \"view\"", reordered.get(0));
+        assertSame(cached, reordered.get(1));
+        assertEquals("Caf\u00e9 room", reordered.get(2));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Represents properties stored field by field, where a property is identified by its position (its row).
+ * The getters return the same values as the getters of AirbnbListing, so that a ListingRow can present any row
+ * as an AirbnbListing whatever the storage behind it (a ListingTable on the heap or an OffHeapListingStore).
+ * @author Tihomir Stefanov
+ */
+public interface ListingColumns {
+
+    /**
+     * Get the number of properties.
+     * @return the number of properties
+     */
+    int size();
+
+    /**
+     * Get the distinct boroughs, in the order of their codes.
+     * @return the dictionary of the boroughs
+     */
+    String[] getNeighbourhoodDictionary();
+
+    /**
+     * Get the code of the borough of a property, so that boroughs can be compared without comparing strings.
+     * @param row the position of the property
+     * @return the position of the borough in the dictionary of the boroughs
+     */
+    int getNeighbourhoodCode(int row);
+
+    /**
+     * Get the distinct room types, in the order of their codes.
+     * @return the dictionary of the room types
+     */
+    String[] getRoomTypeDictionary();
+
+    /**
+     * Get the code of the room type of a property, so that room types can be compared without comparing strings.
+     * @param row the position of the property
+     * @return the position of the room type in the dictionary of the room types
+     */
+    int getRoomTypeCode(int row);
+
+    String getId(int row);
+
+    String getName(int row);
+
+    String getHost_id(int row);
+
+    String getHost_name(int row);
+
+    String getNeighbourhood(int row);
+
+    double getLatitude(int row);
+
+    double getLongitude(int row);
+
+    String getRoom_type(int row);
+
+    int getPrice(int row);
+
+    int getMinimumNights(int row);
+
+    int getNumberOfReviews(int row);
+
+    String getLastReview(int row);
+
+    double getReviewsPerMonth(int row);
+
+    int getCalculatedHostListingsCount(int row);
+
+    int getAvailability365(int row);
+}
@@ -0,0 +1,379 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Represents a cube of pre-aggregated measures of the properties, with three dimensions: the borough, the room
+ * type and the price bucket. The price buckets are the distinct prices of the properties, so that any price range
+ * covers whole buckets. Each cell holds the number of properties, the totals of their prices, reviews, booking
+ * expenses (price x minimum nights) and availabilities, and the properties with the smallest and the largest
+ * booking expense.
+ * A query slices the cube on a borough and/or a room type (or rolls them up when they are not given) and on a
+ * price range. Along the price dimension the totals are kept as cumulative sums and the smallest and largest
+ * booking expenses in sparse tables, so a query only reads a few values per (borough, room type) pair, whatever
+ * the number of properties.
+ * @author Tihomir Stefanov
+ */
+public class ListingCube {
+
+    // All the loaded properties, sorted by price
+    private PriceIndex priceIndex;
+    // The boroughs, in alphabetical order
+    private String[] boroughs;
+    // The room types, in alphabetical order
+    private String[] roomTypes;
+    // The price of each price bucket, in increasing order
+    private int[] bucketPrices;
+    // The number of properties of the buckets before each bucket, by series (borough x room type) then bucket
+    private int[] countsBefore;
+    // The total price of the buckets before each bucket, by series then bucket
+    private long[] pricesBefore;
+    // The total number of reviews of the buckets before each bucket, by series then bucket
+    private long[] reviewsBefore;
+    // The total booking expense of the buckets before each bucket, by series then bucket
+    private long[] expensesBefore;
+    // The total availability of the buckets before each bucket, by series then bucket
+    private long[] availabilitiesBefore;
+    // The booking expense of each row
+    private long[] expenses;
+    // The row with the smallest booking expense of each run of 2^level buckets of a series, or -1,
+    // by level then series and first bucket
+    private int[][] cheapestRows;
+    // The row with the largest booking expense of each run of 2^level buckets of a series, or -1,
+    // by level then series and first bucket
+    private int[][] mostExpensiveRows;
+
+    /**
+     * Aggregate the properties into the cells of the cube.
+     * @param priceIndex all the loaded properties, sorted by price
+     */
+    public ListingCube(PriceIndex priceIndex)
+    {
+        this.priceIndex = priceIndex;
+        int size = priceIndex.size();
+        TreeSet<String> boroughNames = new TreeSet<>();
+        TreeSet<String> roomTypeNames = new TreeSet<>();
+        int bucketCount = 0;
+        for (int row = 0; row < size; row++) {
+            AirbnbListing property = priceIndex.get(row);
+            boroughNames.add(property.getNeighbourhood());
+            roomTypeNames.add(property.getRoom_type());
+            if (row == 0 || property.getPrice() != priceIndex.get(row - 1).getPrice()) {
+                bucketCount++;
+            }
+        }
+        boroughs = boroughNames.toArray(new String[0]);
+        roomTypes = roomTypeNames.toArray(new String[0]);
+        bucketPrices = new int[bucketCount];
+
+        int cells = boroughs.length * roomTypes.length * bucketCount;
+        int[] counts = new int[cells];
+        long[] prices = new long[cells];
+        long[] reviews = new long[cells];
+        long[] cellExpenses = new long[cells];
+        long[] availabilities = new long[cells];
+        int[] cheapestCellRows = new int[cells];
+        int[] mostExpensiveCellRows = new int[cells];
+        Arrays.fill(cheapestCellRows, -1);
+        Arrays.fill(mostExpensiveCellRows, -1);
+        expenses = new long[size];
+
+        // The position of each borough and room type code of the columns of the properties, if they have codes
+        ListingColumns columns = priceIndex.getColumns();
+        int[] boroughOfCode = columns == null ? null : positionsOf(boroughs, columns.getNeighbourhoodDictionary());
+        int[] roomTypeOfCode = columns == null ? null : positionsOf(roomTypes, columns.getRoomTypeDictionary());
+        int bucket = -1;
+        for (int row = 0; row < size; row++) {
+            AirbnbListing property = priceIndex.get(row);
+            if (bucket < 0 || property.getPrice() != bucketPrices[bucket]) {
+                bucketPrices[++bucket] = property.getPrice();
+            }
+            int series = columns != null
+                    ? boroughOfCode[columns.getNeighbourhoodCode(row)] * roomTypes.length
+                        + roomTypeOfCode[columns.getRoomTypeCode(row)]
+                    : Arrays.binarySearch(boroughs, property.getNeighbourhood()) * roomTypes.length
+                        + Arrays.binarySearch(roomTypes, property.getRoom_type());
+            int cell = series * bucketCount + bucket;
+            long expense = (long) property.getPrice() * property.getMinimumNights();
+            counts[cell]++;
+            prices[cell] += property.getPrice();
+            reviews[cell] += property.getNumberOfReviews();
+            cellExpenses[cell] += expense;
+            availabilities[cell] += property.getAvailability365();
+            // The rows come in increasing order, so a strict comparison keeps the first row in case of a tie
+            if (cheapestCellRows[cell] < 0 || expense < expenses[cheapestCellRows[cell]]) {
+                cheapestCellRows[cell] = row;
+            }
+            if (mostExpensiveCellRows[cell] < 0 || expense > expenses[mostExpensiveCellRows[cell]]) {
+                mostExpensiveCellRows[cell] = row;
+            }
+            expenses[row] = expense;
+        }
+
+        int seriesCount = boroughs.length * roomTypes.length;
+        countsBefore = new int[seriesCount * (bucketCount + 1)];
+        pricesBefore = new long[countsBefore.length];
+        reviewsBefore = new long[countsBefore.length];
+        expensesBefore = new long[countsBefore.length];
+        availabilitiesBefore = new long[countsBefore.length];
+        for (int series = 0; series < seriesCount; series++) {
+            for (int b = 0; b < bucketCount; b++) {
+                int cell = series * bucketCount + b;
+                int before = series * (bucketCount + 1) + b;
+                countsBefore[before + 1] = countsBefore[before] + counts[cell];
+                pricesBefore[before + 1] = pricesBefore[before] + prices[cell];
+                reviewsBefore[before + 1] = reviewsBefore[before] + reviews[cell];
+                expensesBefore[before + 1] = expensesBefore[before] + cellExpenses[cell];
+                availabilitiesBefore[before + 1] = availabilitiesBefore[before] + availabilities[cell];
+            }
+        }
+        cheapestRows = buildSparseTable(cheapestCellRows, true);
+        mostExpensiveRows = buildSparseTable(mostExpensiveCellRows, false);
+    }
+
+    /**
+     * Get the boroughs of the cube.
+     * @return the boroughs, in alphabetical order
+     */
+    public String[] getBoroughs()
+    {
+        return boroughs.clone();
+    }
+
+    /**
+     * Get the room types of the cube.
+     * @return the room types, in alphabetical order
+     */
+    public String[] getRoomTypes()
+    {
+        return roomTypes.clone();
+    }
+
+    /**
+     * Aggregate the properties of a slice of the cube.
+     * @param borough the borough of the properties, or null for all the boroughs
+     * @param roomType the room type of the properties, or null for all the room types
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the measures of the properties of the slice
+     */
+    public CubeAggregate aggregate(String borough, String roomType, int fromPrice, int toPrice)
+    {
+        int fromBorough = 0;
+        int toBorough = boroughs.length;
+        if (borough != null) {
+            fromBorough = Arrays.binarySearch(boroughs, borough);
+            toBorough = fromBorough + 1;
+        }
+        int fromRoomType = 0;
+        int toRoomType = roomTypes.length;
+        if (roomType != null) {
+            fromRoomType = Arrays.binarySearch(roomTypes, roomType);
+            toRoomType = fromRoomType + 1;
+        }
+        if (fromBorough < 0 || fromRoomType < 0) {
+            return aggregateOf(0, 0, 0, 0, 0, 0);
+        }
+        return aggregateOf(fromBorough, toBorough, fromRoomType, toRoomType, fromBucket(fromPrice), toBucket(toPrice));
+    }
+
+    /**
+     * Roll up the price range of a room type by borough.
+     * @param roomType the room type of the properties, or null for all the room types
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the measures of the properties of each borough, in alphabetical order of the boroughs
+     */
+    public Map<String, CubeAggregate> rollUpByBorough(String roomType, int fromPrice, int toPrice)
+    {
+        Map<String, CubeAggregate> aggregates = new LinkedHashMap<>();
+        for (String borough : boroughs) {
+            aggregates.put(borough, aggregate(borough, roomType, fromPrice, toPrice));
+        }
+        return aggregates;
+    }
+
+    /**
+     * Roll up the price range of a borough by room type.
+     * @param borough the borough of the properties, or null for all the boroughs
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the measures of the properties of each room type, in alphabetical order of the room types
+     */
+    public Map<String, CubeAggregate> rollUpByRoomType(String borough, int fromPrice, int toPrice)
+    {
+        Map<String, CubeAggregate> aggregates = new LinkedHashMap<>();
+        for (String roomType : roomTypes) {
+            aggregates.put(roomType, aggregate(borough, roomType, fromPrice, toPrice));
+        }
+        return aggregates;
+    }
+
+    /**
+     * Get the statistics of a price range (see ListingStatistics) from queries of the cube.
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the statistics of the properties of the price range
+     */
+    public ListingStatistics getStatistics(int fromPrice, int toPrice)
+    {
+        int fromBucket = fromBucket(fromPrice);
+        int toBucket = toBucket(toPrice);
+        CubeAggregate all = aggregateOf(0, boroughs.length, 0, roomTypes.length, fromBucket, toBucket);
+        int entireHome = Arrays.binarySearch(roomTypes, ListingStatistics.ENTIRE_HOME);
+        int entireHomeCount = entireHome < 0 ? 0
+                : aggregateOf(0, boroughs.length, entireHome, entireHome + 1, fromBucket, toBucket).getCount();
+
+        String mostExpensiveBorough = null;
+        long largestExpense = 0;
+        for (int b = 0; b < boroughs.length; b++) {
+            CubeAggregate borough = aggregateOf(b, b + 1, 0, roomTypes.length, fromBucket, toBucket);
+            if (borough.getTotalExpense() > largestExpense) {
+                mostExpensiveBorough = boroughs[b];
+                largestExpense = borough.getTotalExpense();
+            }
+        }
+
+        AirbnbListing cheapestProperty = all.getCheapestProperty();
+        return new ListingStatistics(all.getCount(), all.getTotalReviews(), entireHomeCount,
+                mostExpensiveBorough, cheapestProperty,
+                cheapestProperty == null ? 0 : (long) cheapestProperty.getPrice() * cheapestProperty.getMinimumNights());
+    }
+
+    /**
+     * Aggregate the cells of some boroughs and room types between two price buckets.
+     */
+    private CubeAggregate aggregateOf(int fromBorough, int toBorough, int fromRoomType, int toRoomType,
+                                      int fromBucket, int toBucket)
+    {
+        int count = 0;
+        long totalPrice = 0;
+        long totalReviews = 0;
+        long totalExpense = 0;
+        long totalAvailability = 0;
+        int cheapestRow = -1;
+        int mostExpensiveRow = -1;
+        for (int b = fromBorough; b < toBorough && toBucket > fromBucket; b++) {
+            for (int r = fromRoomType; r < toRoomType; r++) {
+                int s = b * roomTypes.length + r;
+                int from = s * (bucketPrices.length + 1) + fromBucket;
+                int to = s * (bucketPrices.length + 1) + toBucket;
+                if (countsBefore[to] == countsBefore[from]) {
+                    continue;
+                }
+                count += countsBefore[to] - countsBefore[from];
+                totalPrice += pricesBefore[to] - pricesBefore[from];
+                totalReviews += reviewsBefore[to] - reviewsBefore[from];
+                totalExpense += expensesBefore[to] - expensesBefore[from];
+                totalAvailability += availabilitiesBefore[to] - availabilitiesBefore[from];
+                cheapestRow = better(cheapestRow, rangeRow(cheapestRows, true, s, fromBucket, toBucket), true);
+                mostExpensiveRow = better(mostExpensiveRow, rangeRow(mostExpensiveRows, false, s, fromBucket, toBucket),
+                        false);
+            }
+        }
+        return new CubeAggregate(count, totalPrice, totalReviews, totalExpense, totalAvailability,
+                cheapestRow < 0 ? null : priceIndex.get(cheapestRow),
+                mostExpensiveRow < 0 ? null : priceIndex.get(mostExpensiveRow));
+    }
+
+    /**
+     * Find the cheapest (or most expensive) row of a series between two price buckets, from its sparse table.
+     */
+    private int rangeRow(int[][] table, boolean cheapest, int series, int fromBucket, int toBucket)
+    {
+        int level = 31 - Integer.numberOfLeadingZeros(toBucket - fromBucket);
+        int first = series * bucketPrices.length + fromBucket;
+        return better(table[level][first], table[level][first + toBucket - fromBucket - (1 << level)], cheapest);
+    }
+
+    /**
+     * Build a sparse table: the best row of each cell, then of each run of 2, 4, 8... cells of the same series.
+     */
+    private int[][] buildSparseTable(int[] cellRows, boolean cheapest)
+    {
+        List<int[]> levels = new ArrayList<>();
+        int[] level = cellRows;
+        levels.add(level);
+        int bucketCount = bucketPrices.length;
+        for (int width = 2; width <= bucketCount; width *= 2) {
+            int[] previous = level;
+            level = new int[cellRows.length];
+            for (int cell = 0; cell < cellRows.length; cell++) {
+                // Only the runs that stay in the series of their first cell are used
+                level[cell] = cell % bucketCount + width <= bucketCount
+                        ? better(previous[cell], previous[cell + width / 2], cheapest) : -1;
+            }
+            levels.add(level);
+        }
+        return levels.toArray(new int[0][]);
+    }
+
+    /**
+     * Get the row with the smaller (or larger) booking expense of two rows (the first one in case of a tie).
+     */
+    private int better(int row, int other, boolean cheapest)
+    {
+        if (row < 0) {
+            return other;
+        }
+        if (other < 0) {
+            return row;
+        }
+        boolean otherBetter = cheapest ? expenses[other] < expenses[row] : expenses[other] > expenses[row];
+        if (otherBetter || (expenses[other] == expenses[row] && other < row)) {
+            return other;
+        }
+        return row;
+    }
+
+    /**
+     * Get the first price bucket with a price not smaller than the given price.
+     */
+    private int fromBucket(int fromPrice)
+    {
+        int low = 0;
+        int high = bucketPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bucketPrices[middle] < fromPrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the first price bucket with a price larger than the given price.
+     */
+    private int toBucket(int toPrice)
+    {
+        int low = 0;
+        int high = bucketPrices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bucketPrices[middle] <= toPrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the position in a sorted array of each value of a dictionary, by code.
+     */
+    private static int[] positionsOf(String[] sortedValues, String[] dictionary)
+    {
+        int[] positions = new int[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            positions[code] = Arrays.binarySearch(sortedValues, dictionary[code]);
+        }
+        return positions;
+    }
+}
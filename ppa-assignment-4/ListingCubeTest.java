@@ -0,0 +1,106 @@
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ListingCubeTest {
+
+    // The properties of the tested cube
+    PriceIndex TestIndex = new PriceIndex(SyntheticListings.create(20000, 5));
+    // Instance of the tested ListingCube class
+    ListingCube TestCube = new ListingCube(TestIndex);
+
+    /**
+     * Test that the getStatistics() method gives the same statistics as a pass over the properties of the price range.
+     */
+    @Test
+    public void getStatisticsEqualsScan() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            int fromPrice = random.nextInt(400);
+            int toPrice = i % 10 == 0 ? fromPrice - 1 : fromPrice + random.nextInt(i % 2 == 0 ? 20 : 2000);
+            List<AirbnbListing> range = TestIndex.getRange(fromPrice, toPrice);
+            ListingStatistics expected = new ListingStatistics(range);
+            ListingStatistics actual = TestCube.getStatistics(fromPrice, toPrice);
+
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getAverageReviews(), actual.getAverageReviews(), 1e-9);
+            assertEquals(expected.getEntireHomeCount(), actual.getEntireHomeCount());
+            assertEquals(expected.getMostExpensiveBorough(), actual.getMostExpensiveBorough());
+            assertEquals(expected.getMinimumExpense(), actual.getMinimumExpense());
+            assertSame(expected.getCheapestProperty(), actual.getCheapestProperty());
+        }
+    }
+
+    /**
+     * Test that a cube of the rows of a table (whose boroughs and room types are compared by code) gives the same
+     * statistics as a cube of the same properties as objects.
+     */
+    @Test
+    public void getStatisticsOfTable() {
+        PriceIndex tableIndex = new PriceIndex(new ListingTable(SyntheticListings.create(20000, 5)));
+        ListingCube tableCube = new ListingCube(tableIndex);
+        int[][] priceRanges = {{0, 10000}, {50, 200}, {100, 100}};
+        for (int[] range : priceRanges) {
+            ListingStatistics expected = TestCube.getStatistics(range[0], range[1]);
+            ListingStatistics actual = tableCube.getStatistics(range[0], range[1]);
+            ListingStatistics scan = new ListingStatistics(tableIndex.getRange(range[0], range[1]));
+
+            assertEquals(expected.getEntireHomeCount(), actual.getEntireHomeCount());
+            assertEquals(expected.getEntireHomeCount(), scan.getEntireHomeCount());
+            assertEquals(expected.getMostExpensiveBorough(), actual.getMostExpensiveBorough());
+            assertEquals(expected.getMostExpensiveBorough(), scan.getMostExpensiveBorough());
+            assertEquals(expected.getCheapestProperty().getId(), actual.getCheapestProperty().getId());
+        }
+    }
+
+    /**
+     * Test that the aggregate() method gives the same measures as a pass over the properties of the slice.
+     */
+    @Test
+    public void aggregateEqualsScan() {
+        List<AirbnbListing> range = TestIndex.getRange(100, 200);
+        int count = 0;
+        long totalPrice = 0;
+        long totalAvailability = 0;
+        AirbnbListing mostExpensive = null;
+        for (AirbnbListing property : range) {
+            if (property.getNeighbourhood().equals("Camden") && property.getRoom_type().equals("Private room")) {
+                count++;
+                totalPrice += property.getPrice();
+                totalAvailability += property.getAvailability365();
+                if (mostExpensive == null || (long) property.getPrice() * property.getMinimumNights()
+                        > (long) mostExpensive.getPrice() * mostExpensive.getMinimumNights()) {
+                    mostExpensive = property;
+                }
+            }
+        }
+
+        CubeAggregate aggregate = TestCube.aggregate("Camden", "Private room", 100, 200);
+        assertEquals(count, aggregate.getCount());
+        assertEquals((double) totalPrice / count, aggregate.getAveragePrice(), 1e-9);
+        assertEquals(totalAvailability, aggregate.getTotalAvailability());
+        assertSame(mostExpensive, aggregate.getMostExpensiveProperty());
+        assertEquals(0, TestCube.aggregate("Atlantis", null, 100, 200).getCount());
+        assertNull(TestCube.aggregate(null, null, 200, 100).getCheapestProperty());
+    }
+
+    /**
+     * Test that the roll-ups add up to the whole slice.
+     */
+    @Test
+    public void rollUpsAddUp() {
+        CubeAggregate all = TestCube.aggregate(null, null, 50, 150);
+        Map<String, CubeAggregate> byBorough = TestCube.rollUpByBorough(null, 50, 150);
+        Map<String, CubeAggregate> byRoomType = TestCube.rollUpByRoomType(null, 50, 150);
+
+        assertEquals(TestCube.getBoroughs().length, byBorough.size());
+        assertEquals(all.getTotalReviews(), byBorough.values().stream().mapToLong(CubeAggregate::getTotalReviews).sum());
+        assertEquals(all.getTotalExpense(), byRoomType.values().stream().mapToLong(CubeAggregate::getTotalExpense).sum());
+        long camden = TestIndex.getRange(50, 150).stream().filter(p -> p.getNeighbourhood().equals("Camden")).count();
+        assertEquals(camden, byBorough.get("Camden").getCount());
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an index of the loaded properties by their id, so that a property can be found without scanning
+ * all the properties. The numeric ids are stored in a primitive open-addressing hash table (no boxing), the rare
+ * ids that are not plain numbers are kept in a regular map.
+ * @author Tihomir Stefanov
+ */
+public class ListingIdIndex {
+
+    // The largest fraction of the hash table slots that may be used, to keep the probe sequences short
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    // The indexed properties, the table stores positions in this list
+    private List<AirbnbListing> listings;
+    // The numeric id stored in each slot of the hash table
+    private long[] keys;
+    // The position of the property (plus one) stored in each slot of the hash table, 0 for an empty slot
+    private int[] rows;
+    // Mask to turn a hash into a slot index (the table size is a power of two)
+    private int mask;
+    // The positions of the properties whose ids are not plain numbers
+    private Map<String, Integer> otherIds = new HashMap<>();
+
+    /**
+     * Index the properties by id. When several properties share an id, the first one is kept.
+     * @param listings the properties to index
+     */
+    public ListingIdIndex(List<AirbnbListing> listings)
+    {
+        this.listings = listings;
+        int capacity = Integer.highestOneBit((int) Math.max(2, listings.size() / MAX_LOAD_FACTOR) - 1) << 1;
+        keys = new long[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+
+        int row = 0;
+        for (AirbnbListing listing : listings) {
+            String id = listing.getId();
+            long key = parseId(id);
+            if (key >= 0) {
+                insert(key, row);
+            } else {
+                otherIds.putIfAbsent(id, row);
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Find the property with the given id.
+     * @param id the id of the property
+     * @return the property, or null if no property has this id
+     */
+    public AirbnbListing find(String id)
+    {
+        int row = findRow(id);
+        return row >= 0 ? listings.get(row) : null;
+    }
+
+    /**
+     * Find the position of the property with the given id.
+     * @param id the id of the property
+     * @return the position of the property in the indexed list, or -1 if no property has this id
+     */
+    public int findRow(String id)
+    {
+        if (id == null) {
+            return -1;
+        }
+        long key = parseId(id);
+        if (key < 0) {
+            Integer row = otherIds.get(id);
+            return row != null ? row : -1;
+        }
+        for (int slot = hash(key) & mask; rows[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return rows[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Store a numeric id in the hash table (linear probing), unless it is already stored.
+     */
+    private void insert(long key, int row)
+    {
+        int slot = hash(key) & mask;
+        while (rows[slot] != 0) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        rows[slot] = row + 1;
+    }
+
+    /**
+     * Convert an id to a number, without creating any object.
+     * Only ids that are written exactly as Long.toString would write them are converted,
+     * so that two different ids can never have the same number.
+     * @param id the id to convert
+     * @return the id as a number, or -1 if the id is not a plain non-negative number
+     */
+    private static long parseId(String id)
+    {
+        int length = id.length();
+        if (length == 0 || length > 18 || (length > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Spread the bits of a key so that consecutive ids do not fill consecutive slots (MurmurHash3 finalizer).
+     */
+    private static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,44 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListingIdIndexTest {
+
+    // The properties indexed by the tested ListingIdIndex
+    List<AirbnbListing> properties = Arrays.asList(
+            new ListingRecord("13913", "Flat", "10", "Anna", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+            new ListingRecord("007", "House", "11", "Ben", "Enfield", 51.6, -0.1, "Entire home/apt", 90, 2, 7, "", 1.5, 1, 200),
+            new ListingRecord("7", "Room", "12", "Cleo", "Camden", 51.5, -0.1, "Private room", 40, 1, 0, "", -1, 1, 10),
+            new ListingRecord("13913", "Duplicate", "13", "Dan", "Camden", 51.5, -0.1, "Private room", 40, 1, 0, "", -1, 1, 10));
+
+    // Instance of the tested ListingIdIndex class
+    ListingIdIndex TestIndex = new ListingIdIndex(properties);
+
+    /**
+     * Test of the findRow() method.
+     */
+    @Test
+    public void findRow() {
+        assertEquals(0, TestIndex.findRow("13913"));
+        assertEquals(1, TestIndex.findRow("007"));
+        assertEquals(2, TestIndex.findRow("7"));
+        assertEquals(-1, TestIndex.findRow("8"));
+        assertEquals(-1, TestIndex.findRow("abc"));
+    }
+
+    /**
+     * Test of the find() method on a larger number of properties.
+     */
+    @Test
+    public void find() {
+        List<AirbnbListing> listings = SyntheticListings.create(10000, 1);
+        ListingIdIndex index = new ListingIdIndex(listings);
+        for (AirbnbListing listing : listings) {
+            assertSame(listing, index.find(listing.getId()));
+        }
+        assertNull(index.find("1"));
+    }
+}
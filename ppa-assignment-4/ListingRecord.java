@@ -0,0 +1,159 @@
+/**
+ * Represents one listing of a property for rental on Airbnb whose fields are held by the object itself,
+ * as parsed from one row of the data table. Each column has a corresponding field.
+ */
+
+public class ListingRecord extends AirbnbListing {
+    /**
+     * The id and name of the individual property
+     */
+    private String id;
+    private String name;
+    /**
+     * The id and name of the host for this listing.
+     * Each listing has only one host, but one host may
+     * list many properties.
+     */
+    private String host_id;
+    private String host_name;
+
+    /**
+     * The grouped location to where the listed property is situated.
+     * For this data set, it is a london borough.
+     */
+    private String neighbourhood;
+
+    /**
+     * The location on a map where the property is situated.
+     */
+    private double latitude;
+    private double longitude;
+
+    /**
+     * The type of property, either "Private room" or "Entire Home/apt".
+     */
+    private String room_type;
+
+    /**
+     * The price per night's stay
+     */
+    private int price;
+
+    /**
+     * The minimum number of nights the listed property must be booked for.
+     */
+    private int minimumNights;
+    private int numberOfReviews;
+
+    /**
+     * The date of the last review, but as a String
+     */
+    private String lastReview;
+    private double reviewsPerMonth;
+
+    /**
+     * The total number of listings the host holds across AirBnB
+     */
+    private int calculatedHostListingsCount;
+    /**
+     * The total number of days in the year that the property is available for
+     */
+    private int availability365;
+
+    public ListingRecord(String id, String name, String host_id,
+                         String host_name, String neighbourhood, double latitude,
+                         double longitude, String room_type, int price,
+                         int minimumNights, int numberOfReviews, String lastReview,
+                         double reviewsPerMonth, int calculatedHostListingsCount, int availability365) {
+        this.id = id;
+        this.name = name;
+        this.host_id = host_id;
+        this.host_name = host_name;
+        this.neighbourhood = neighbourhood;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.room_type = room_type;
+        this.price = price;
+        this.minimumNights = minimumNights;
+        this.numberOfReviews = numberOfReviews;
+        this.lastReview = lastReview;
+        this.reviewsPerMonth = reviewsPerMonth;
+        this.calculatedHostListingsCount = calculatedHostListingsCount;
+        this.availability365 = availability365;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getHost_id() {
+        return host_id;
+    }
+
+    @Override
+    public String getHost_name() {
+        return host_name;
+    }
+
+    @Override
+    public String getNeighbourhood() {
+        return neighbourhood;
+    }
+
+    @Override
+    public double getLatitude() {
+        return latitude;
+    }
+
+    @Override
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String getRoom_type() {
+        return room_type;
+    }
+
+    @Override
+    public int getPrice() {
+        return price;
+    }
+
+    @Override
+    public int getMinimumNights() {
+        return minimumNights;
+    }
+
+    @Override
+    public int getNumberOfReviews() {
+        return numberOfReviews;
+    }
+
+    @Override
+    public String getLastReview() {
+        return lastReview;
+    }
+
+    @Override
+    public double getReviewsPerMonth() {
+        return reviewsPerMonth;
+    }
+
+    @Override
+    public int getCalculatedHostListingsCount() {
+        return calculatedHostListingsCount;
+    }
+
+    @Override
+    public int getAvailability365() {
+        return availability365;
+    }
+}
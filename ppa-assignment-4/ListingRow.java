@@ -0,0 +1,145 @@
+/**
+ * Represents a property stored in a ListingTable (or another ListingColumns), as an AirbnbListing. It only holds
+ * the table and the position of the property, and reads every field from the columns of the table when it is asked
+ * for. Two ListingRows of the same property are equal.
+ * @author Tihomir Stefanov
+ */
+public class ListingRow extends AirbnbListing {
+
+    // The table holding the fields of the property
+    private ListingColumns table;
+    // The position of the property in the table
+    private int row;
+
+    /**
+     * Create a view of a property of a table.
+     * @param table the table holding the property
+     * @param row the position of the property in the table
+     */
+    public ListingRow(ListingColumns table, int row)
+    {
+        this.table = table;
+        this.row = row;
+    }
+
+    /**
+     * Get the position of the property in its table.
+     * @return the position of the property
+     */
+    public int getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Get the table holding the property.
+     * @return the table of the property
+     */
+    public ListingColumns getColumns()
+    {
+        return table;
+    }
+
+    /**
+     * Get the code of the borough of the property in the dictionary of its table.
+     * @return the code of the borough
+     */
+    public int getNeighbourhoodCode()
+    {
+        return table.getNeighbourhoodCode(row);
+    }
+
+    /**
+     * Get the code of the room type of the property in the dictionary of its table.
+     * @return the code of the room type
+     */
+    public int getRoomTypeCode()
+    {
+        return table.getRoomTypeCode(row);
+    }
+
+    @Override
+    public String getId() {
+        return table.getId(row);
+    }
+
+    @Override
+    public String getName() {
+        return table.getName(row);
+    }
+
+    @Override
+    public String getHost_id() {
+        return table.getHost_id(row);
+    }
+
+    @Override
+    public String getHost_name() {
+        return table.getHost_name(row);
+    }
+
+    @Override
+    public String getNeighbourhood() {
+        return table.getNeighbourhood(row);
+    }
+
+    @Override
+    public double getLatitude() {
+        return table.getLatitude(row);
+    }
+
+    @Override
+    public double getLongitude() {
+        return table.getLongitude(row);
+    }
+
+    @Override
+    public String getRoom_type() {
+        return table.getRoom_type(row);
+    }
+
+    @Override
+    public int getPrice() {
+        return table.getPrice(row);
+    }
+
+    @Override
+    public int getMinimumNights() {
+        return table.getMinimumNights(row);
+    }
+
+    @Override
+    public int getNumberOfReviews() {
+        return table.getNumberOfReviews(row);
+    }
+
+    @Override
+    public String getLastReview() {
+        return table.getLastReview(row);
+    }
+
+    @Override
+    public double getReviewsPerMonth() {
+        return table.getReviewsPerMonth(row);
+    }
+
+    @Override
+    public int getCalculatedHostListingsCount() {
+        return table.getCalculatedHostListingsCount(row);
+    }
+
+    @Override
+    public int getAvailability365() {
+        return table.getAvailability365(row);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ListingRow && ((ListingRow) other).table == table && ((ListingRow) other).row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(table) + row;
+    }
+}
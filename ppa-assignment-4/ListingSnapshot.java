@@ -0,0 +1,241 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Represents a binary snapshot of the parsed AirBnB data set, so that later startups can skip parsing the csv file.
+ * The snapshot is stored column by column and is keyed by the size, the modification time and a checksum of the
+ * csv file it was created from. A stale or corrupt snapshot is never used, the csv file is parsed instead.
+ * @author Tihomir Stefanov
+ */
+public class ListingSnapshot {
+
+    // Identifies a snapshot file ("ABSN")
+    private static final int MAGIC = 0x4142534E;
+    // Version of the snapshot format, to increase whenever the layout below changes
+    private static final int VERSION = 1;
+    // The largest part of the csv file that is memory-mapped at once while computing its checksum
+    private static final long CHECKSUM_WINDOW_SIZE = 1 << 30;
+
+    // The csv file the snapshot is created from
+    private File csvFile;
+    // The snapshot file
+    private File snapshotFile;
+    // The checksum of the csv file, computed on first use
+    private Long csvChecksum;
+
+    /**
+     * Create a snapshot of a csv file.
+     * @param csvFile the csv file the snapshot is created from
+     * @param snapshotFile the file in which the snapshot is stored
+     */
+    public ListingSnapshot(File csvFile, File snapshotFile) {
+        this.csvFile = csvFile;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Read the listings stored in the snapshot file.
+     * The reason an existing snapshot is not used is printed.
+     * @return the listings in csv order, or null if the snapshot is missing, stale or corrupt
+     */
+    public ListingTable read() {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.out.println("Snapshot has an unknown format, parsing the csv file");
+                return null;
+            }
+            if (buffer.getLong() != csvFile.length() || buffer.getLong() != csvFile.lastModified()
+                    || buffer.getLong() != getCsvChecksum()) {
+                System.out.println("Snapshot is stale (the csv file changed), parsing the csv file");
+                return null;
+            }
+            if (!checksumMatches(buffer)) {
+                System.out.println("Snapshot is corrupt (its checksum does not match), parsing the csv file");
+                return null;
+            }
+            return readListings(buffer);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Snapshot could not be read (" + e + "), parsing the csv file");
+            return null;
+        }
+    }
+
+    /**
+     * Store the listings in the snapshot file. The snapshot is written to a temporary file first
+     * and then moved into place, so that a crash never leaves a half written snapshot behind.
+     * @param listings the listings parsed from the csv file, in csv order
+     */
+    public void write(ListingTable listings) {
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (FileOutputStream file = new FileOutputStream(tempFile);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), checksum);
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(csvFile.length());
+                out.writeLong(csvFile.lastModified());
+                out.writeLong(getCsvChecksum());
+                writeListings(out, listings);
+                out.flush();
+                // The checksum of everything above closes the file (and is not part of itself)
+                new DataOutputStream(file).writeLong(checksum.getValue());
+            }
+            Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // The csv file is parsed again at the next startup
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Write the columns of the listings.
+     * @param out the stream to write to
+     * @param listings the listings to write
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeListings(DataOutputStream out, ListingTable listings) throws IOException {
+        int size = listings.size();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) out.writeInt(listings.getPrice(i));
+        for (int i = 0; i < size; i++) out.writeInt(listings.getMinimumNights(i));
+        for (int i = 0; i < size; i++) out.writeInt(listings.getNumberOfReviews(i));
+        for (int i = 0; i < size; i++) out.writeInt(listings.getCalculatedHostListingsCount(i));
+        for (int i = 0; i < size; i++) out.writeInt(listings.getAvailability365(i));
+        for (int i = 0; i < size; i++) out.writeDouble(listings.getLatitude(i));
+        for (int i = 0; i < size; i++) out.writeDouble(listings.getLongitude(i));
+        for (int i = 0; i < size; i++) out.writeDouble(listings.getReviewsPerMonth(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getId(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getName(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getHost_id(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getHost_name(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getNeighbourhood(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getRoom_type(i));
+        for (int i = 0; i < size; i++) writeString(out, listings.getLastReview(i));
+    }
+
+    /**
+     * Read the columns of the listings, in the order they were written by writeListings.
+     * @param buffer the buffer positioned at the start of the columns
+     * @return the listings stored in the snapshot, kept column by column
+     */
+    private ListingTable readListings(MappedByteBuffer buffer) {
+        int size = buffer.getInt();
+        int[] price = readInts(buffer, size);
+        int[] minimumNights = readInts(buffer, size);
+        int[] numberOfReviews = readInts(buffer, size);
+        int[] calculatedHostListingsCount = readInts(buffer, size);
+        int[] availability365 = readInts(buffer, size);
+        double[] latitude = readDoubles(buffer, size);
+        double[] longitude = readDoubles(buffer, size);
+        double[] reviewsPerMonth = readDoubles(buffer, size);
+        String[] id = readStrings(buffer, size);
+        String[] name = readStrings(buffer, size);
+        String[] host_id = readStrings(buffer, size);
+        String[] host_name = readStrings(buffer, size);
+        String[] neighbourhood = readStrings(buffer, size);
+        String[] room_type = readStrings(buffer, size);
+        String[] lastReview = readStrings(buffer, size);
+
+        return new ListingTable(id, name, host_id, host_name, neighbourhood, latitude, longitude, room_type,
+                price, minimumNights, numberOfReviews, lastReview, reviewsPerMonth, calculatedHostListingsCount,
+                availability365);
+    }
+
+    /**
+     * Whether the checksum closing the snapshot matches its content.
+     * @param buffer the whole snapshot
+     * @return true if the snapshot is intact, else false
+     */
+    private boolean checksumMatches(MappedByteBuffer buffer) {
+        int contentSize = buffer.capacity() - Long.BYTES;
+        if (contentSize < buffer.position()) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().position(0).limit(contentSize));
+        return buffer.getLong(contentSize) == checksum.getValue();
+    }
+
+    /**
+     * Get the checksum of the csv file, mapping it in windows so that files of any size are supported.
+     * @return the CRC32 checksum of the csv file
+     * @throws IOException if the csv file cannot be read
+     */
+    private long getCsvChecksum() throws IOException {
+        if (csvChecksum == null) {
+            CRC32 checksum = new CRC32();
+            try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long start = 0; start < size; start += CHECKSUM_WINDOW_SIZE) {
+                    checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                            Math.min(CHECKSUM_WINDOW_SIZE, size - start)));
+                }
+            }
+            csvChecksum = checksum.getValue();
+        }
+        return csvChecksum;
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes.
+     */
+    private void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a column of ints.
+     */
+    private int[] readInts(MappedByteBuffer buffer, int size) {
+        int[] column = new int[size];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        return column;
+    }
+
+    /**
+     * Read a column of doubles.
+     */
+    private double[] readDoubles(MappedByteBuffer buffer, int size) {
+        double[] column = new double[size];
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        return column;
+    }
+
+    /**
+     * Read a column of strings written by writeString.
+     */
+    private String[] readStrings(MappedByteBuffer buffer, int size) {
+        String[] column = new String[size];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < size; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, 2 * bytes.length)];
+            }
+            buffer.get(bytes, 0, length);
+            column[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return column;
+    }
+}
@@ -0,0 +1,119 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListingSnapshotTest {
+
+    // The properties stored in the tested snapshot
+    List<AirbnbListing> properties = SyntheticListings.create(1000, 9);
+
+    // The csv file the snapshot is keyed by, and the snapshot file
+    File csvFile;
+    File snapshotFile;
+
+    /**
+     * Test that the listings read from a snapshot are the listings it was written with.
+     */
+    @Test
+    public void roundTrip() throws IOException {
+        writeSnapshot();
+        try {
+            ListingTable table = new ListingSnapshot(csvFile, snapshotFile).read();
+            assertNotNull(table);
+            assertEquals(properties.size(), table.size());
+            for (int i = 0; i < properties.size(); i++) {
+                assertEquals(properties.get(i).toString(), table.asList().get(i).toString());
+            }
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Test that a snapshot of a csv file which changed since is not used.
+     */
+    @Test
+    public void staleSnapshot() throws IOException {
+        writeSnapshot();
+        try {
+            assertTrue(csvFile.setLastModified(csvFile.lastModified() + 60_000));
+            assertNull(new ListingSnapshot(csvFile, snapshotFile).read());
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Test that a truncated snapshot is not used.
+     */
+    @Test
+    public void truncatedSnapshot() throws IOException {
+        writeSnapshot();
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+                file.setLength(file.length() / 2);
+            }
+            assertNull(new ListingSnapshot(csvFile, snapshotFile).read());
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Test that a snapshot with a modified byte is not used.
+     */
+    @Test
+    public void corruptSnapshot() throws IOException {
+        writeSnapshot();
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+                long position = file.length() / 2;
+                file.seek(position);
+                int value = file.read();
+                file.seek(position);
+                file.write(value ^ 1);
+            }
+            assertNull(new ListingSnapshot(csvFile, snapshotFile).read());
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Test that a file which is not a snapshot is not used.
+     */
+    @Test
+    public void unknownFormat() throws IOException {
+        writeSnapshot();
+        try {
+            Files.write(snapshotFile.toPath(), "id,name\n1,Flat\n".getBytes());
+            assertNull(new ListingSnapshot(csvFile, snapshotFile).read());
+        } finally {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Write a snapshot of the properties, keyed by a new csv file.
+     */
+    private void writeSnapshot() throws IOException {
+        csvFile = File.createTempFile("airbnb", ".csv");
+        Files.write(csvFile.toPath(), "id,name\n1,Flat\n".getBytes());
+        snapshotFile = File.createTempFile("airbnb", ".snapshot");
+        new ListingSnapshot(csvFile, snapshotFile).write(new ListingTable(properties));
+    }
+
+    /**
+     * Delete the csv file and the snapshot file.
+     */
+    private void deleteFiles() {
+        csvFile.delete();
+        snapshotFile.delete();
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the statistics of a list of properties, either computed in a single pass over the properties
+ * or precomputed (see ListingCube):
+ * the number of properties, the average number of reviews, the number of entire homes and apartments,
+ * the borough with the largest total booking expense (price x minimum nights) and the property with
+ * the smallest booking expense.
+ * @author Tihomir Stefanov
+ */
+public class ListingStatistics {
+
+    // The room type of entire homes and apartments
+    public static final String ENTIRE_HOME = "Entire home/apt";
+
+    // The number of properties
+    private int count;
+    // The total number of reviews
+    private long totalReviews;
+    // The number of entire homes and apartments
+    private int entireHomeCount;
+    // The borough with the largest total booking expense, or null
+    private String mostExpensiveBorough;
+    // The property with the smallest booking expense, or null
+    private AirbnbListing cheapestProperty;
+    // The booking expense of the cheapest property
+    private long minimumExpense;
+
+    /**
+     * Compute the statistics of a list of properties, in a single pass comparing their text fields.
+     * The application takes its statistics from a ListingCube, this is the plain computation they must match.
+     * @param properties the properties
+     */
+    public ListingStatistics(List<AirbnbListing> properties)
+    {
+        // The total booking expense of each borough, in order of appearance
+        Map<String, Long> boroughExpenses = new LinkedHashMap<>();
+
+        for (AirbnbListing property : properties) {
+            count++;
+            totalReviews += property.getNumberOfReviews();
+            if (ENTIRE_HOME.equals(property.getRoom_type())) {
+                entireHomeCount++;
+            }
+            long expense = (long) property.getPrice() * property.getMinimumNights();
+            if (cheapestProperty == null || expense < minimumExpense) {
+                cheapestProperty = property;
+                minimumExpense = expense;
+            }
+            boroughExpenses.merge(property.getNeighbourhood(), expense, Long::sum);
+        }
+
+        long largestExpense = 0;
+        for (Map.Entry<String, Long> borough : boroughExpenses.entrySet()) {
+            if (borough.getValue() > largestExpense) {
+                mostExpensiveBorough = borough.getKey();
+                largestExpense = borough.getValue();
+            }
+        }
+    }
+
+    /**
+     * Create statistics that are already computed.
+     * @param count the number of properties
+     * @param totalReviews the total number of reviews
+     * @param entireHomeCount the number of entire homes and apartments
+     * @param mostExpensiveBorough the borough with the largest total booking expense, or null
+     * @param cheapestProperty the property with the smallest booking expense, or null
+     * @param minimumExpense the booking expense of the cheapest property
+     */
+    public ListingStatistics(int count, long totalReviews, int entireHomeCount, String mostExpensiveBorough,
+                             AirbnbListing cheapestProperty, long minimumExpense)
+    {
+        this.count = count;
+        this.totalReviews = totalReviews;
+        this.entireHomeCount = entireHomeCount;
+        this.mostExpensiveBorough = mostExpensiveBorough;
+        this.cheapestProperty = cheapestProperty;
+        this.minimumExpense = minimumExpense;
+    }
+
+    /**
+     * Get the number of properties.
+     * @return the number of properties
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Get the average number of reviews per property.
+     * @return the average number of reviews, or NaN if there is no property
+     */
+    public double getAverageReviews()
+    {
+        return count == 0 ? Double.NaN : (double) totalReviews / count;
+    }
+
+    /**
+     * Get the number of entire homes and apartments.
+     * @return the number of entire homes and apartments
+     */
+    public int getEntireHomeCount()
+    {
+        return entireHomeCount;
+    }
+
+    /**
+     * Get the borough with the largest total booking expense (price x minimum nights).
+     * @return the most expensive borough, or null if there is no property
+     */
+    public String getMostExpensiveBorough()
+    {
+        return mostExpensiveBorough;
+    }
+
+    /**
+     * Get the property with the smallest booking expense (price x minimum nights).
+     * @return the cheapest property, or null if there is no property
+     */
+    public AirbnbListing getCheapestProperty()
+    {
+        return cheapestProperty;
+    }
+
+    /**
+     * Get the smallest booking expense (price x minimum nights).
+     * @return the booking expense of the cheapest property, or 0 if there is no property
+     */
+    public long getMinimumExpense()
+    {
+        return minimumExpense;
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ListingStatisticsTest {
+
+    /**
+     * Test that all the statistics are computed in the same pass.
+     */
+    @Test
+    public void statistics() {
+        ListingStatistics stats = new ListingStatistics(Arrays.asList(
+                listing("1", "Camden", "Entire home/apt", 100, 2, 10),
+                listing("2", "Camden", "Private room", 50, 1, 0),
+                listing("3", "Westminster", "Entire home/apt", 120, 1, 5),
+                listing("4", "Hackney", "Private room", 30, 1, 1)));
+
+        assertEquals(4, stats.getCount());
+        assertEquals(4.0, stats.getAverageReviews(), 1e-9);
+        assertEquals(2, stats.getEntireHomeCount());
+        // Camden: 200 + 50 = 250, Westminster: 120, Hackney: 30
+        assertEquals("Camden", stats.getMostExpensiveBorough());
+        assertEquals("4", stats.getCheapestProperty().getId());
+        assertEquals(30, stats.getMinimumExpense());
+    }
+
+    /**
+     * Test that the most expensive borough is the one with the largest total booking expense, not the largest
+     * average.
+     */
+    @Test
+    public void mostExpensiveBoroughByTotal() {
+        ListingStatistics stats = new ListingStatistics(Arrays.asList(
+                listing("1", "Camden", "Private room", 100, 1, 0),
+                listing("2", "Camden", "Private room", 100, 1, 0),
+                listing("3", "Westminster", "Private room", 150, 1, 0)));
+        assertEquals("Camden", stats.getMostExpensiveBorough());
+    }
+
+    /**
+     * Test the statistics of an empty price range.
+     */
+    @Test
+    public void noProperty() {
+        ListingStatistics stats = new ListingStatistics(new ArrayList<>());
+        assertEquals(0, stats.getCount());
+        assertTrue(Double.isNaN(stats.getAverageReviews()));
+        assertNull(stats.getMostExpensiveBorough());
+        assertNull(stats.getCheapestProperty());
+    }
+
+    /**
+     * Create a property.
+     */
+    private AirbnbListing listing(String id, String borough, String roomType, int price, int minimumNights, int reviews) {
+        return new ListingRecord(id, "Property " + id, "1", "Host", borough, 51.5, -0.1, roomType, price,
+                minimumNights, reviews, "", -1, 1, 0);
+    }
+}
@@ -0,0 +1,385 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents the loaded properties column by column (one array per field) instead of one object per property.
+ * The numeric fields are kept in primitive arrays, and the borough, the room type, the host name and the date of the
+ * last review, which repeat a lot, are kept as small codes into dictionaries of their values (so each distinct value
+ * is a single String, and filters on these fields compare codes instead of strings). A property is read through a
+ * ListingRow, a light AirbnbListing that reads its fields from the table, so the panels work unchanged.
+ * The name, the host name and the date of the last review can also be read lazily from the csv file (see
+ * LazyTextColumn), as only the descriptions of the properties and the search need them.
+ * @author Tihomir Stefanov
+ */
+public class ListingTable implements ListingColumns {
+
+    // The number of properties
+    private int size;
+    // The text fields of each property
+    private String[] ids;
+    private String[] names;
+    private String[] hostIds;
+    // The numeric fields of each property
+    private int[] prices;
+    private int[] minimumNights;
+    private int[] numberOfReviews;
+    private int[] calculatedHostListingsCounts;
+    private int[] availabilities;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] reviewsPerMonth;
+    // The distinct values of the repeated text fields, and the code of the value of each property
+    private StringDictionary neighbourhoodDictionary;
+    private int[] neighbourhoodCodes;
+    private StringDictionary roomTypeDictionary;
+    private int[] roomTypeCodes;
+    private StringDictionary hostNameDictionary;
+    private int[] hostNameCodes;
+    private StringDictionary lastReviewDictionary;
+    private int[] lastReviewCodes;
+    // The names, host names and dates of the last review read from the csv file when needed, or null (then the
+    // names are in the names array and the host names and dates are coded)
+    private LazyTextColumn lazyNames;
+    private LazyTextColumn lazyHostNames;
+    private LazyTextColumn lazyLastReviews;
+    // A read-only view of the properties, as light AirbnbListings
+    private List<AirbnbListing> rows;
+
+    /**
+     * Store properties column by column.
+     * @param listings the properties
+     */
+    public ListingTable(List<AirbnbListing> listings)
+    {
+        this(listings, null, null, null);
+    }
+
+    /**
+     * Store properties column by column, reading their name, host name and date of the last review lazily.
+     * @param listings the properties (their name, host name and date of the last review are not read)
+     * @param names the names of the properties, in the same order
+     * @param hostNames the host names of the properties, in the same order
+     * @param lastReviews the dates of the last review of the properties, in the same order
+     */
+    public ListingTable(List<AirbnbListing> listings, LazyTextColumn names, LazyTextColumn hostNames,
+                        LazyTextColumn lastReviews)
+    {
+        lazyNames = names;
+        lazyHostNames = hostNames;
+        lazyLastReviews = lastReviews;
+        allocate(listings.size());
+        createDictionaries();
+        int row = 0;
+        for (AirbnbListing listing : listings) {
+            ids[row] = listing.getId();
+            if (lazyNames == null) {
+                this.names[row] = listing.getName();
+                hostNameCodes[row] = hostNameDictionary.encode(listing.getHost_name());
+                lastReviewCodes[row] = lastReviewDictionary.encode(listing.getLastReview());
+            }
+            hostIds[row] = listing.getHost_id();
+            prices[row] = listing.getPrice();
+            minimumNights[row] = listing.getMinimumNights();
+            numberOfReviews[row] = listing.getNumberOfReviews();
+            calculatedHostListingsCounts[row] = listing.getCalculatedHostListingsCount();
+            availabilities[row] = listing.getAvailability365();
+            latitudes[row] = listing.getLatitude();
+            longitudes[row] = listing.getLongitude();
+            reviewsPerMonth[row] = listing.getReviewsPerMonth();
+            neighbourhoodCodes[row] = neighbourhoodDictionary.encode(listing.getNeighbourhood());
+            roomTypeCodes[row] = roomTypeDictionary.encode(listing.getRoom_type());
+            row++;
+        }
+    }
+
+    /**
+     * Store properties from their columns (in the order of the fields of AirbnbListing). The columns are not copied.
+     */
+    public ListingTable(String[] ids, String[] names, String[] hostIds, String[] hostNames, String[] neighbourhoods,
+                        double[] latitudes, double[] longitudes, String[] roomTypes, int[] prices, int[] minimumNights,
+                        int[] numberOfReviews, String[] lastReviews, double[] reviewsPerMonth,
+                        int[] calculatedHostListingsCounts, int[] availabilities)
+    {
+        size = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.hostIds = hostIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.prices = prices;
+        this.minimumNights = minimumNights;
+        this.numberOfReviews = numberOfReviews;
+        this.reviewsPerMonth = reviewsPerMonth;
+        this.calculatedHostListingsCounts = calculatedHostListingsCounts;
+        this.availabilities = availabilities;
+        createDictionaries();
+        neighbourhoodCodes = new int[size];
+        roomTypeCodes = new int[size];
+        hostNameCodes = new int[size];
+        lastReviewCodes = new int[size];
+        for (int row = 0; row < size; row++) {
+            neighbourhoodCodes[row] = neighbourhoodDictionary.encode(neighbourhoods[row]);
+            roomTypeCodes[row] = roomTypeDictionary.encode(roomTypes[row]);
+            hostNameCodes[row] = hostNameDictionary.encode(hostNames[row]);
+            lastReviewCodes[row] = lastReviewDictionary.encode(lastReviews[row]);
+        }
+        rows = new RowList();
+    }
+
+    /**
+     * Create an empty table of the given size, filled by the caller, with the given lazy columns (or nulls).
+     */
+    private ListingTable(int size, LazyTextColumn names, LazyTextColumn hostNames, LazyTextColumn lastReviews)
+    {
+        lazyNames = names;
+        lazyHostNames = hostNames;
+        lazyLastReviews = lastReviews;
+        allocate(size);
+    }
+
+
+    /**
+     * Get a copy of the table sorted by price. Properties with the same price keep their order.
+     * @return the properties sorted from the cheapest to the most expensive
+     */
+    public ListingTable sortedByPrice()
+    {
+        // The price in the high bits and the row in the low bits: sorting the keys is a stable sort of the rows
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) prices[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        ListingTable sorted = lazyNames == null ? new ListingTable(size, null, null, null)
+                : new ListingTable(size, lazyNames.reorder(order), lazyHostNames.reorder(order),
+                        lazyLastReviews.reorder(order));
+        for (int i = 0; i < size; i++) {
+            int row = order[i];
+            sorted.ids[i] = ids[row];
+            sorted.hostIds[i] = hostIds[row];
+            sorted.prices[i] = prices[row];
+            sorted.minimumNights[i] = minimumNights[row];
+            sorted.numberOfReviews[i] = numberOfReviews[row];
+            sorted.calculatedHostListingsCounts[i] = calculatedHostListingsCounts[row];
+            sorted.availabilities[i] = availabilities[row];
+            sorted.latitudes[i] = latitudes[row];
+            sorted.longitudes[i] = longitudes[row];
+            sorted.reviewsPerMonth[i] = reviewsPerMonth[row];
+            sorted.neighbourhoodCodes[i] = neighbourhoodCodes[row];
+            sorted.roomTypeCodes[i] = roomTypeCodes[row];
+            if (lazyNames == null) {
+                sorted.names[i] = names[row];
+                sorted.hostNameCodes[i] = hostNameCodes[row];
+                sorted.lastReviewCodes[i] = lastReviewCodes[row];
+            }
+        }
+        sorted.neighbourhoodDictionary = neighbourhoodDictionary;
+        sorted.roomTypeDictionary = roomTypeDictionary;
+        sorted.hostNameDictionary = hostNameDictionary;
+        sorted.lastReviewDictionary = lastReviewDictionary;
+        return sorted;
+    }
+
+    /**
+     * Get the properties as AirbnbListings. Each property is read from the table when it is accessed.
+     * @return a read-only list of the properties
+     */
+    public List<AirbnbListing> asList()
+    {
+        return rows;
+    }
+
+    /**
+     * Get a property as an AirbnbListing that reads its fields from the table.
+     * @param row the position of the property
+     * @return the property at this position
+     */
+    public AirbnbListing get(int row)
+    {
+        return new ListingRow(this, row);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public String[] getNeighbourhoodDictionary()
+    {
+        return neighbourhoodDictionary.toArray();
+    }
+
+    @Override
+    public int getNeighbourhoodCode(int row)
+    {
+        return neighbourhoodCodes[row];
+    }
+
+    @Override
+    public String[] getRoomTypeDictionary()
+    {
+        return roomTypeDictionary.toArray();
+    }
+
+    @Override
+    public int getRoomTypeCode(int row)
+    {
+        return roomTypeCodes[row];
+    }
+
+    /**
+     * Get the code of the host name of a property.
+     * @param row the position of the property
+     * @return the code of the host name in the dictionary of the host names, or -1 if the host names are lazy
+     */
+    public int getHostNameCode(int row)
+    {
+        return lazyHostNames == null ? hostNameCodes[row] : -1;
+    }
+
+    // The fields of the property at a position, as returned by the getters of AirbnbListing (see ListingColumns)
+
+    @Override
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    @Override
+    public String getName(int row) {
+        return lazyNames == null ? names[row] : lazyNames.get(row);
+    }
+
+    @Override
+    public String getHost_id(int row) {
+        return hostIds[row];
+    }
+
+    @Override
+    public String getHost_name(int row) {
+        return lazyHostNames == null ? hostNameDictionary.get(hostNameCodes[row]) : lazyHostNames.get(row);
+    }
+
+    @Override
+    public String getNeighbourhood(int row) {
+        return neighbourhoodDictionary.get(neighbourhoodCodes[row]);
+    }
+
+    @Override
+    public double getLatitude(int row) {
+        return latitudes[row];
+    }
+
+    @Override
+    public double getLongitude(int row) {
+        return longitudes[row];
+    }
+
+    @Override
+    public String getRoom_type(int row) {
+        return roomTypeDictionary.get(roomTypeCodes[row]);
+    }
+
+    @Override
+    public int getPrice(int row) {
+        return prices[row];
+    }
+
+    @Override
+    public int getMinimumNights(int row) {
+        return minimumNights[row];
+    }
+
+    @Override
+    public int getNumberOfReviews(int row) {
+        return numberOfReviews[row];
+    }
+
+    @Override
+    public String getLastReview(int row) {
+        return lazyLastReviews == null ? lastReviewDictionary.get(lastReviewCodes[row])
+                : lazyLastReviews.get(row);
+    }
+
+    @Override
+    public double getReviewsPerMonth(int row) {
+        return reviewsPerMonth[row];
+    }
+
+    @Override
+    public int getCalculatedHostListingsCount(int row) {
+        return calculatedHostListingsCounts[row];
+    }
+
+    @Override
+    public int getAvailability365(int row) {
+        return availabilities[row];
+    }
+
+    /**
+     * Allocate the columns of the given number of properties, except the lazy ones.
+     */
+    private void allocate(int size)
+    {
+        this.size = size;
+        ids = new String[size];
+        hostIds = new String[size];
+        prices = new int[size];
+        minimumNights = new int[size];
+        numberOfReviews = new int[size];
+        calculatedHostListingsCounts = new int[size];
+        availabilities = new int[size];
+        latitudes = new double[size];
+        longitudes = new double[size];
+        reviewsPerMonth = new double[size];
+        neighbourhoodCodes = new int[size];
+        roomTypeCodes = new int[size];
+        if (lazyNames == null) {
+            names = new String[size];
+            hostNameCodes = new int[size];
+            lastReviewCodes = new int[size];
+        }
+        rows = new RowList();
+    }
+
+    /**
+     * Create the empty dictionaries of the repeated text fields.
+     */
+    private void createDictionaries()
+    {
+        neighbourhoodDictionary = new StringDictionary();
+        roomTypeDictionary = new StringDictionary();
+        hostNameDictionary = new StringDictionary();
+        lastReviewDictionary = new StringDictionary();
+    }
+
+    /**
+     * The properties of the table as a read-only list of ListingRows.
+     */
+    private class RowList extends AbstractList<AirbnbListing> implements RandomAccess
+    {
+        @Override
+        public AirbnbListing get(int row)
+        {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            return new ListingRow(ListingTable.this, row);
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
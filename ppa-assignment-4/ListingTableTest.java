@@ -0,0 +1,98 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ListingTableTest {
+
+    // The properties stored in the tested ListingTable
+    List<AirbnbListing> properties = Arrays.asList(
+            new ListingRecord("13913", "Flat", "10", "Anna", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+            new ListingRecord("007", "House", "11", "Ben", "Enfield", 51.6, -0.2, "Entire home/apt", 90, 2, 7, "2019-01-15", 1.5, 1, 200),
+            new ListingRecord("7", "Room", "12", "Cleo", "Camden", 51.5, -0.1, "Private room", 40, 1, 0, "", -1, 1, 10),
+            new ListingRecord("8", "Studio", "13", "Dan", "Camden", 51.5, -0.1, "Private room", 50, 3, 0, "", -1, 2, 20));
+
+    // Instance of the tested ListingTable class
+    ListingTable TestTable = new ListingTable(properties);
+
+    /**
+     * Test that the rows of the table return the fields of the stored properties.
+     */
+    @Test
+    public void asList() {
+        List<AirbnbListing> rows = TestTable.asList();
+        assertEquals(properties.size(), rows.size());
+        for (int i = 0; i < properties.size(); i++) {
+            assertEquals(properties.get(i).toString(), rows.get(i).toString());
+        }
+        assertEquals(rows.get(1), TestTable.get(1));
+        assertNotEquals(rows.get(1), rows.get(2));
+    }
+
+    /**
+     * Test of the dictionary codes of the boroughs and the room types.
+     */
+    @Test
+    public void codes() {
+        assertArrayEquals(new String[] {"Enfield", "Camden"}, TestTable.getNeighbourhoodDictionary());
+        assertArrayEquals(new String[] {"Private room", "Entire home/apt"}, TestTable.getRoomTypeDictionary());
+        assertEquals(1, TestTable.getNeighbourhoodCode(3));
+        assertEquals(1, TestTable.getRoomTypeCode(1));
+        assertEquals("Camden", TestTable.getNeighbourhood(2));
+        assertEquals(3, TestTable.getHostNameCode(3));
+        assertEquals("2019-01-15", TestTable.getLastReview(1));
+    }
+
+    /**
+     * Test of the sortedByPrice() method, properties with the same price keep their order.
+     */
+    @Test
+    public void sortedByPrice() {
+        ListingTable sorted = TestTable.sortedByPrice();
+        assertEquals("7", sorted.getId(0));
+        assertEquals("13913", sorted.getId(1));
+        assertEquals("8", sorted.getId(2));
+        assertEquals("007", sorted.getId(3));
+        assertEquals("Entire home/apt", sorted.getRoom_type(3));
+        assertEquals(-0.2, sorted.getLongitude(3), 0.001);
+        assertEquals(3, sorted.getMinimumNights(2));
+    }
+
+    /**
+     * Test that a table whose names, host names and dates of the last review are read lazily from the csv file
+     * returns the same properties as a table loaded eagerly, including a row which opencsv had to parse.
+     */
+    @Test
+    public void lazyText() throws IOException {
+        File csvFile = File.createTempFile("listings", ".csv");
+        csvFile.deleteOnExit();
+        String csv = "id,name,host_id,host_name,neighbourhood,latitude,longitude,room_type,price,minimum_nights,"
+                + "number_of_reviews,last_review,reviews_per_month,calculated_host_listings_count,availability_365\n"
+                + "13913,\"Flat, garden\",10,Anna,Enfield,51.6,-0.1,Private room,50,1,3,,0.5,1,100\n"
+                + "007,\"The \"\"best\"\" house\",11,Ben,Enfield,51.6,-0.2,Entire home/apt,90,2,7,2019-01-15,1.5,1,200\n"
+                + "7,Room,12,Cleo,Camden,51.5,-0.1,Private room,40,1,0,,,1,10\n";
+        Files.write(csvFile.toPath(), csv.getBytes(Charset.defaultCharset()));
+
+        AirbnbDataLoader loader = new AirbnbDataLoader();
+        ListingTable eager = loader.loadTable(csvFile);
+        ListingTable lazy = loader.loadLazyTable(csvFile, false);
+        assertEquals(3, lazy.size());
+        for (int row = 0; row < eager.size(); row++) {
+            assertEquals(eager.get(row).toString(), lazy.get(row).toString());
+        }
+        assertEquals("The \"best\" house", lazy.getName(1));
+        assertEquals(-1, lazy.getHostNameCode(0));
+
+        ListingTable sorted = loader.loadLazyTable(csvFile, true).sortedByPrice();
+        assertEquals("Room", sorted.getName(0));
+        assertEquals("Flat, garden", sorted.getName(1));
+        assertEquals("Ben", sorted.getHost_name(2));
+        assertEquals("2019-01-15", sorted.getLastReview(2));
+    }
+}
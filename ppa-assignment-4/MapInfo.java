@@ -30,10 +30,23 @@ public class MapInfo {
 
     //The boroughs of London and their corresponding coordinates in the map.
     private String[][] LondonBoroughs;
-    //An array storing a list of all the properties of all homes on sale
-    private ArrayList<AirbnbListing> propertyList = new ArrayList<>();
+    //A list of all the properties of all homes on sale (a read-only view of the selected price range)
+    private List<AirbnbListing> propertyList = new ArrayList<>();
+    //The order in which the properties of a neighbourhood are returned, null to keep the price order
+    private Comparator<AirbnbListing> propertyOrder;
     //The abbreviations of the neighbourhoods represented on the map
     private Map<String,String> LondonAbbreviations;
+    //The index of each borough in the 2d array, by borough name
+    private Map<String,Integer> boroughIndexes;
+    //The positions in propertyList of the properties grouped by borough index (in price order within each borough),
+    //so that a property is only read from the list when it is displayed
+    private int[] boroughPartition;
+    //The index in boroughPartition of the first property of each borough, followed by the number of grouped properties
+    private int[] boroughStarts;
+    //The order in which the properties of each borough are currently arranged in boroughPartition
+    private Comparator<AirbnbListing>[] boroughOrders;
+    //The index of all the loaded properties by id
+    private ListingIdIndex idIndex;
     /**
      * The constructor initialises the 2d array.
      */
@@ -41,6 +54,8 @@ public class MapInfo {
     {
         LondonBoroughs = new String[NUM_BOROUGHS][INFO_INDEX];
         LondonAbbreviations = new HashMap<String,String>();
+        boroughIndexes = new HashMap<String,Integer>();
+        setPropertyData(propertyList);
     }
 
     /**
@@ -100,6 +115,7 @@ public class MapInfo {
         LondonBoroughs[i][0] = name;
         LondonBoroughs[i][1] = x_Coordinate;
         LondonBoroughs[i][2] = y_Coordinate;
+        boroughIndexes.put(name, i);
     }
 
     /**
@@ -163,45 +179,149 @@ public class MapInfo {
     }
 
     /**
-     * This method counts the total number of properties that are currently on sale in a specified neighbourhood.
+     * This method returns the total number of properties that are currently on sale in a specified neighbourhood.
+     * The counts of all the boroughs are computed once by setPropertyData, so this is a simple lookup.
      * @return The number of occurrences of a neighbourhood in the list of properties corresponding to the selected price range
      */
     public int getNumberOfOccurrences(String neighbourhood)
     {
-        int counter = 0;
+        Integer index = boroughIndexes.get(neighbourhood);
+        if (index == null)
+        {
+            return 0;
+        }
+        return boroughStarts[index + 1] - boroughStarts[index];
+    }
+
+    /**
+     * Updates the list of properties which can be used to generate the map based on price, and groups the
+     * properties by borough (a counting sort on the borough index) so that the properties of one borough
+     * can be returned without scanning the others.
+     * @param properties it uses an array list which stores all the information about each property
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setPropertyData(List<AirbnbListing> properties)
+    {
+        propertyList = properties;
+
+        // Count the properties of each borough. The properties read from a table are matched by their borough
+        // code (an int comparison), the others by the name of their borough
+        int[] indexes = new int[propertyList.size()];
+        int[] starts = new int[NUM_BOROUGHS + 1];
+        ListingColumns columns = null;
+        int[] boroughOfCode = new int[0];
+        int row = 0;
         for (AirbnbListing ar:propertyList)
         {
-            if (neighbourhood.equals(ar.getNeighbourhood()))
+            int index;
+            if (ar instanceof ListingRow)
             {
-                counter+=1;
+                ListingRow listingRow = (ListingRow) ar;
+                int code = listingRow.getNeighbourhoodCode();
+                if (listingRow.getColumns() != columns || code >= boroughOfCode.length)
+                {
+                    columns = listingRow.getColumns();
+                    boroughOfCode = getBoroughIndexes(columns.getNeighbourhoodDictionary());
+                }
+                index = boroughOfCode[code];
+            }
+            else
+            {
+                Integer boroughIndex = boroughIndexes.get(ar.getNeighbourhood());
+                index = boroughIndex == null ? -1 : boroughIndex;
+            }
+            indexes[row++] = index;
+            if (index != -1)
+            {
+                starts[index + 1]+=1;
             }
         }
-        return counter;
+        for (int i = 0; i < NUM_BOROUGHS; i++)
+        {
+            starts[i + 1] += starts[i];
+        }
+
+        // Place the position of each property in the range of its borough
+        int[] partition = new int[starts[NUM_BOROUGHS]];
+        int[] next = Arrays.copyOf(starts, NUM_BOROUGHS);
+        for (row = 0; row < indexes.length; row++)
+        {
+            int index = indexes[row];
+            if (index != -1)
+            {
+                partition[next[index]++] = row;
+            }
+        }
+
+        boroughPartition = partition;
+        boroughStarts = starts;
+        boroughOrders = new Comparator[NUM_BOROUGHS];
     }
 
     /**
-     * Updates the list of properties which can be used to generate the map based on price
-     * @param properties it uses an array list which stores all the information about each property
+     * Returns the index in the 2d array of each borough of a dictionary of boroughs, by borough code.
+     * @param dictionary the boroughs, in the order of their codes
+     * @return the index of each borough, or -1 for the boroughs which are not on the map
      */
-    public void setPropertyData(ArrayList<AirbnbListing> properties)
+    private int[] getBoroughIndexes(String[] dictionary)
     {
-        propertyList = properties;
+        int[] indexes = new int[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++)
+        {
+            Integer index = boroughIndexes.get(dictionary[code]);
+            indexes[code] = index == null ? -1 : index;
+        }
+        return indexes;
     }
 
     /**
-     * Returns the list of properties available based on neighbourhood
+     * Returns the list of properties available based on neighbourhood, in the order selected by the last
+     * call to one of the sorting methods. The list is a read-only view of the properties grouped by
+     * setPropertyData: only the properties of the requested borough are touched, and each property is read
+     * from the list of properties when the view is asked for it (when it is displayed).
      * @param neighbourhood name of the neighbourhood as a String
      * @return an array with all the information about every property available
      */
-    public ArrayList<AirbnbListing> getPropertyList(String neighbourhood)
+    public List<AirbnbListing> getPropertyList(String neighbourhood)
     {
-        ArrayList<AirbnbListing> filteredProperties = new ArrayList<>();
-        for (AirbnbListing ar:propertyList) {
-            if (neighbourhood.equals(ar.getNeighbourhood())) {
-                filteredProperties.add(ar);
-            }
+        Integer index = boroughIndexes.get(neighbourhood);
+        if (index == null)
+        {
+            return Collections.emptyList();
+        }
+        int start = boroughStarts[index];
+        int end = boroughStarts[index + 1];
+        if (propertyOrder != null && boroughOrders[index] != propertyOrder)
+        {
+            sortPositions(start, end, propertyOrder);
+            boroughOrders[index] = propertyOrder;
+        }
+        return new BoroughList(propertyList, boroughPartition, start, end);
+    }
+
+    /**
+     * Sorts the positions of a range of boroughPartition by the properties at these positions (a stable sort,
+     * so the properties in the same order stay in price order).
+     * @param start the index of the first position to sort
+     * @param end the index after the last position to sort
+     * @param order the order of the properties
+     */
+    private void sortPositions(int start, int end, Comparator<AirbnbListing> order)
+    {
+        // The properties are read once for the sort, and released afterwards
+        AirbnbListing[] properties = new AirbnbListing[end - start];
+        Integer[] sorted = new Integer[end - start];
+        for (int i = 0; i < properties.length; i++)
+        {
+            properties[i] = propertyList.get(boroughPartition[start + i]);
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (first, second) -> order.compare(properties[first], properties[second]));
+        int[] positions = Arrays.copyOfRange(boroughPartition, start, end);
+        for (int i = 0; i < sorted.length; i++)
+        {
+            boroughPartition[start + i] = positions[sorted[i]];
         }
-        return filteredProperties;
     }
 
     /**
@@ -232,96 +352,122 @@ public class MapInfo {
 
     /**
      * This method sorts all the properties within a given range by their number of reviews
-     * It uses a comparator and a collections class as well as a sort method which is able to return the
-     * ordered version of the arrayList in descending order.
+     * It uses a comparator which getPropertyList applies to the properties of the requested neighbourhood,
+     * as the properties of the price range are shared and cannot be reordered in place.
      * Inspiration taken from: link: https://youtube.be/wzWFQTLn8hl
      */
     public void sortPropertyByNumReviews()
     {
-        propertyList.sort(new Comparator<AirbnbListing>() {
+        propertyOrder = new Comparator<AirbnbListing>() {
             public int compare(AirbnbListing property1, AirbnbListing property2) {
                 return Integer.compare(property2.getNumberOfReviews(), property1.getNumberOfReviews());
             }
-        });
+        };
     }
 
     /**
      * This method sorts all the properties within a given range by their price from cheapest to most
-     * expensive. It uses a comparator and a collections class as well as a sort
-     * method which is able to return the ordered version of the arrayList in descending order.
+     * expensive. It uses a comparator which getPropertyList applies to the properties of the requested neighbourhood.
      * Inspiration taken from: link: https://youtube.be/wzWFQTLn8hl
      */
     public void sortPropertyByPriceLowToHigh()
     {
-        propertyList.sort(new Comparator<AirbnbListing>() {
+        propertyOrder = new Comparator<AirbnbListing>() {
             public int compare(AirbnbListing property1, AirbnbListing property2) {
                 return Integer.compare(property1.getPrice(), property2.getPrice());
             }
-        });
+        };
     }
 
     /**
      * This method sorts all the properties within a given range by their price from most expensive to cheapest.
-     * It uses a comparator and a collections class as well as a sort
-     * method which is able to return the ordered version of the arrayList in descending order.
+     * It uses a comparator which getPropertyList applies to the properties of the requested neighbourhood.
      * Inspiration taken from: link: https://youtube.be/wzWFQTLn8hl
      */
     public void sortPropertyByPriceHighToLow()
     {
-        propertyList.sort(new Comparator<AirbnbListing>() {
+        propertyOrder = new Comparator<AirbnbListing>() {
             public int compare(AirbnbListing property1, AirbnbListing property2) {
                 return -Integer.compare(property1.getPrice(), property2.getPrice());
             }
-        });
+        };
     }
 
     /**
      * This method sorts all the properties within a given range by their host name in alphabetical order
-     * It uses a comparator and a collections class as well as a sort method which is able to return the
-     * ordered version of the arrayList in descending order.
+     * It uses a comparator which getPropertyList applies to the properties of the requested neighbourhood.
      * Inspiration taken from: link: https://youtube.be/wzWFQTLn8hl
      */
     public void sortPropertyByHostName()
     {
-        propertyList.sort(new Comparator<AirbnbListing>() {
+        propertyOrder = new Comparator<AirbnbListing>() {
             public int compare(AirbnbListing property1, AirbnbListing property2) {
                 return String.valueOf(property1.getHost_name()).compareTo(property2.getHost_name());
             }
-        });
+        };
+    }
+
+    /**
+     * Sets the index of all the loaded properties by id, used to find a property from its id without
+     * scanning the list of properties.
+     * @param index the index of all the loaded properties by id
+     */
+    public void setIdIndex(ListingIdIndex index)
+    {
+        idIndex = index;
     }
 
     /**
      * This method searches for the propery that has been selected from the user and
      * produces a description of the property with all the details that haven't been
-     * already revealed.
+     * already revealed. The property is found through the id index when it is set.
      * @param propertyID holds the id of the property from which the property can be identified
      * @return return a String which stores the description of the property.
      */
     public String showPropertyDescription(String propertyID)
     {
-        String description;
-        for (AirbnbListing property: propertyList)
+        if (idIndex != null)
         {
-            if(property.getId().equals(propertyID))
+            AirbnbListing property = idIndex.find(propertyID);
+            if (property != null)
             {
-                description = "Host name: "+property.getHost_name()
-                        +"\nProperty name: "+property.getName()
-                        +"\nBorough: "+property.getNeighbourhood()
-                        +"\nPrice: \u00A3"+property.getPrice()
-                        +"\n\nMinimum nights: "+property.getMinimumNights()
-                        +"\nPropertyID: "+property.getId()
-                        +"\nLast Review: "+property.getLastReview()
-                        +"\nRoom type: "+property.getRoom_type()
-                        +"\nAvailability throughout the year: "+property.getAvailability365()
-                        +"\nHost listings account: "+property.getCalculatedHostListingsCount()
-                        +"\nProperty latitude: "+property.getLatitude()
-                        +"\nProperty longitude: "+property.getLongitude()
-                        +"\nAverage number of reviews per month: "+property.getReviewsPerMonth();
-                return description;
+                return showPropertyDescription(property);
             }
         }
-        description = "No description available for that property!";
-        return description;
+        else
+        {
+            for (AirbnbListing property: propertyList)
+            {
+                if(property.getId().equals(propertyID))
+                {
+                    return showPropertyDescription(property);
+                }
+            }
+        }
+        return "No description available for that property!";
+    }
+
+    /**
+     * This method produces a description of a property with all the details that haven't been
+     * already revealed.
+     * @param property the property to describe
+     * @return return a String which stores the description of the property.
+     */
+    public String showPropertyDescription(AirbnbListing property)
+    {
+        return "Host name: "+property.getHost_name()
+                +"\nProperty name: "+property.getName()
+                +"\nBorough: "+property.getNeighbourhood()
+                +"\nPrice: \u00A3"+property.getPrice()
+                +"\n\nMinimum nights: "+property.getMinimumNights()
+                +"\nPropertyID: "+property.getId()
+                +"\nLast Review: "+property.getLastReview()
+                +"\nRoom type: "+property.getRoom_type()
+                +"\nAvailability throughout the year: "+property.getAvailability365()
+                +"\nHost listings account: "+property.getCalculatedHostListingsCount()
+                +"\nProperty latitude: "+property.getLatitude()
+                +"\nProperty longitude: "+property.getLongitude()
+                +"\nAverage number of reviews per month: "+property.getReviewsPerMonth();
     }
 
     /**
@@ -336,5 +482,41 @@ public class MapInfo {
         }
         return -1;
     }
-}
 
+    /**
+     * The properties of one borough, as a read-only view of the positions of a range of the borough partition.
+     */
+    private static class BoroughList extends AbstractList<AirbnbListing> implements RandomAccess
+    {
+        // The properties of the price range
+        private List<AirbnbListing> properties;
+        // The positions of the properties of the borough, between start and end
+        private int[] positions;
+        private int start;
+        private int end;
+
+        private BoroughList(List<AirbnbListing> properties, int[] positions, int start, int end)
+        {
+            this.properties = properties;
+            this.positions = positions;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public AirbnbListing get(int index)
+        {
+            if (index < 0 || index >= end - start)
+            {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + (end - start));
+            }
+            return properties.get(positions[start + index]);
+        }
+
+        @Override
+        public int size()
+        {
+            return end - start;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class MapInfoTest {
@@ -101,6 +103,87 @@ public class MapInfoTest {
 
     }
 
+    /**
+     * Test of the getNumberOfOccurrences() method once the properties of a price range are set.
+     */
+    @Test
+    public void getNumberOfOccurrencesAfterSetPropertyData() {
+        TestMap.addBoroughs(0, "Enfield", "7", "0");
+        TestMap.addBoroughs(1, "Barnet", "4", "1");
+        TestMap.setPropertyData(Arrays.asList(
+                new ListingRecord("1", "Flat", "10", "Anna", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+                new ListingRecord("2", "House", "11", "Ben", "Enfield", 51.6, -0.1, "Entire home/apt", 90, 2, 7, "", 1.5, 1, 200),
+                new ListingRecord("3", "Room", "12", "Cleo", "Camden", 51.5, -0.1, "Private room", 40, 1, 0, "", -1, 1, 10)));
+
+        assertEquals(2, TestMap.getNumberOfOccurrences("Enfield"));
+        assertEquals(0, TestMap.getNumberOfOccurrences("Barnet"));
+        assertEquals(0, TestMap.getNumberOfOccurrences("Camden"));
+        assertEquals("-fx-background-color:#fab1a0", TestMap.propertyVolumeColour("Enfield"));
+    }
+
+    /**
+     * Test of the getNumberOfOccurrences() method when the properties are the rows of a table (matched by code).
+     */
+    @Test
+    public void getNumberOfOccurrencesOfTableRows() {
+        TestMap.addBoroughs(0, "Enfield", "7", "0");
+        TestMap.addBoroughs(1, "Barnet", "4", "1");
+        TestMap.setPropertyData(new ListingTable(Arrays.asList(
+                new ListingRecord("1", "Flat", "10", "Anna", "Camden", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+                new ListingRecord("2", "House", "11", "Ben", "Enfield", 51.6, -0.1, "Entire home/apt", 90, 2, 7, "", 1.5, 1, 200),
+                new ListingRecord("3", "Room", "12", "Cleo", "Enfield", 51.5, -0.1, "Private room", 40, 1, 0, "", -1, 1, 10))).asList());
+
+        assertEquals(2, TestMap.getNumberOfOccurrences("Enfield"));
+        assertEquals(0, TestMap.getNumberOfOccurrences("Barnet"));
+        assertEquals(0, TestMap.getNumberOfOccurrences("Camden"));
+        assertEquals("3", TestMap.getPropertyList("Enfield").get(1).getId());
+    }
+
+    /**
+     * Test of the getPropertyList() method, with and without a sorting method selected.
+     */
+    @Test
+    public void getPropertyList() {
+        TestMap.addBoroughs(0, "Enfield", "7", "0");
+        TestMap.addBoroughs(1, "Barnet", "4", "1");
+        TestMap.setPropertyData(Arrays.asList(
+                new ListingRecord("1", "Flat", "10", "Anna", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+                new ListingRecord("2", "Loft", "13", "Dan", "Barnet", 51.6, -0.2, "Private room", 60, 1, 1, "", 0.1, 1, 50),
+                new ListingRecord("3", "House", "11", "Ben", "Enfield", 51.6, -0.1, "Entire home/apt", 90, 2, 7, "", 1.5, 1, 200)));
+
+        assertEquals(2, TestMap.getPropertyList("Enfield").size());
+        assertEquals("1", TestMap.getPropertyList("Enfield").get(0).getId());
+        assertEquals("2", TestMap.getPropertyList("Barnet").get(0).getId());
+        assertEquals(0, TestMap.getPropertyList("Camden").size());
+
+        TestMap.sortPropertyByNumReviews();
+        assertEquals("3", TestMap.getPropertyList("Enfield").get(0).getId());
+    }
+
+    /**
+     * Test that the properties of a borough are read from the rows of a table when they are asked for, in the order
+     * of the selected sorting method, and that the list cannot be modified.
+     */
+    @Test
+    public void getPropertyListOfTableRows() {
+        TestMap.addBoroughs(0, "Enfield", "7", "0");
+        ListingTable table = new ListingTable(Arrays.asList(
+                new ListingRecord("1", "Flat", "10", "Cleo", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100),
+                new ListingRecord("2", "Loft", "13", "Dan", "Barnet", 51.6, -0.2, "Private room", 60, 1, 1, "", 0.1, 1, 50),
+                new ListingRecord("3", "House", "11", "Anna", "Enfield", 51.6, -0.1, "Entire home/apt", 90, 2, 7, "", 1.5, 1, 200)));
+        TestMap.setPropertyData(table.asList());
+
+        TestMap.sortPropertyByHostName();
+        assertEquals(table.get(2), TestMap.getPropertyList("Enfield").get(0));
+        assertEquals(table.get(0), TestMap.getPropertyList("Enfield").get(1));
+        try {
+            TestMap.getPropertyList("Enfield").set(0, table.get(1));
+            fail("The list of properties of a borough is read-only");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
     /**
      * Test of the convertInt() method.
      */
@@ -35,8 +35,8 @@ public class MapPanel extends BorderPane {
     private ScrollPane scrollBar;
     //Stores the buttons that represent the neighbourhoods on the map
     private ArrayList<Button> mapButtons;
-    //Stores the buttons that represent the properties in each neighbourhood
-    private ArrayList<ToggleButton> propertyButtons;
+    //Stores the list of the properties in the neighbourhood, represented as buttons
+    private PropertyListView propertyList;
     //Stores the info message displayed in the borough properties method when none is selected
     private Label noPropertySelected;
 
@@ -243,6 +243,8 @@ public class MapPanel extends BorderPane {
             scrollBar = new ScrollPane();
             scrollBar.getStyleClass().add("results-scroll-pane");
             scrollBar.setPrefWidth(mapInfo.getPrefWidth() + 40);
+            scrollBar.setFitToWidth(true);
+            scrollBar.setFitToHeight(true);
             scrollBar.setContent(addPropertyInfo(boroughName));
             sortByNumReviews(boroughName);
             root2.setLeft(scrollBar);
@@ -338,45 +340,29 @@ public class MapPanel extends BorderPane {
      */
     private void refresh(String boroughName)
     {
-        scrollBar.setContent(addPropertyInfo(boroughName));
-        mapInfo.setPropertyData(view.getProperties());
+        propertyList.setProperties(mapInfo.getPropertyList(boroughName));
     }
 
     /**
      * This method includes all the property info for each property for a specific neighbourhood
      * and represents its details as buttons.
      * @param boroughName the name of the neighbourhood as a String
-     * @return the vBox pane which stores all the buttons stacked one on to of the other.
+     * @return the list which shows the buttons stacked one on to of the other.
      */
-    private VBox addPropertyInfo(String boroughName)
+    private PropertyListView addPropertyInfo(String boroughName)
     {
-        VBox vBox = new VBox();
-
-        vBox.setAlignment(Pos.TOP_CENTER);
-        propertyButtons = new ArrayList<>();
-
-        ToggleGroup propertiesToggleGroup = new ToggleGroup();
-
-
-        for(AirbnbListing propertyInfo: mapInfo.getPropertyList(boroughName))
-        {
-            ToggleButton property = new PropertyButton(propertyInfo, mapInfo, propertiesToggleGroup);
-            propertyButtons.add(property);
-            property.setOnAction(p -> boroughPropertyToggled(property, propertyInfo));
-        }
-
-        vBox.getChildren().addAll(propertyButtons);
-        return vBox;
+        propertyList = new PropertyListView(mapInfo, this::boroughPropertyToggled);
+        propertyList.setProperties(mapInfo.getPropertyList(boroughName));
+        return propertyList;
     }
 
     /**
      * Toggle the display of information about clicked property in the borough window.
-     * @param button Button clicked
-     * @param property Property linked to the button
+     * @param property Property selected, or null if it was deselected
      */
-    private void boroughPropertyToggled(ToggleButton button, AirbnbListing property)
+    private void boroughPropertyToggled(AirbnbListing property)
     {
-        if (button.isSelected()) {
+        if (property != null) {
             showDescription(property);
         } else {
             root2.setCenter(noPropertySelected);
@@ -389,7 +375,7 @@ public class MapPanel extends BorderPane {
      */
     private void showDescription(AirbnbListing property)
     {
-        Label propertyDescription = new Label(mapInfo.showPropertyDescription(property.getId()));
+        Label propertyDescription = new Label(mapInfo.showPropertyDescription(property));
         propertyDescription.getStyleClass().add("property-description");
         root2.setCenter(propertyDescription);
 
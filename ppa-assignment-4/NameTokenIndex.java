@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an inverted index of the words (tokens) in the names of the properties. Each word of the vocabulary
+ * has a posting list: the sorted positions of the properties whose name contains the word. As positions are
+ * positions in the price index, the properties of a price range are a contiguous part of every posting list.
+ * The words of the vocabulary are also indexed by the sequences of 1 and 2 characters they contain, so that the
+ * words containing a short searched word are found without going through the whole vocabulary.
+ * @author Tihomir Stefanov
+ */
+public class NameTokenIndex {
+
+    // Every distinct word of the lower-cased names, in alphabetical order
+    private String[] terms;
+    // The posting list of each word, in the same order as the words
+    private int[][] postings;
+    // Every distinct sequence of 1 or 2 characters of the words (packed in an int), in increasing order
+    private int[] grams;
+    // The positions in the vocabulary of the words containing each sequence, in the same order as the sequences
+    private int[][] termsOfGram;
+
+    /**
+     * Index the names of the properties.
+     * @param priceIndex the properties, the positions in the posting lists are positions in this index
+     */
+    public NameTokenIndex(PriceIndex priceIndex)
+    {
+        Map<String, PostingList> postingsByTerm = new HashMap<>();
+        for (int row = 0; row < priceIndex.size(); row++) {
+            for (String token : tokenize(priceIndex.get(row).getName().toLowerCase())) {
+                postingsByTerm.computeIfAbsent(token, t -> new PostingList()).add(row);
+            }
+        }
+
+        terms = postingsByTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        postings = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            postings[i] = postingsByTerm.get(terms[i]).toArray();
+        }
+
+        Map<Integer, PostingList> termsByGram = new HashMap<>();
+        for (int term = 0; term < terms.length; term++) {
+            String word = terms[term];
+            for (int i = 0; i < word.length(); i++) {
+                termsByGram.computeIfAbsent(pack(word, i, 1), g -> new PostingList()).add(term);
+                if (i + 1 < word.length()) {
+                    termsByGram.computeIfAbsent(pack(word, i, 2), g -> new PostingList()).add(term);
+                }
+            }
+        }
+        grams = new int[termsByGram.size()];
+        int i = 0;
+        for (Integer gram : termsByGram.keySet()) {
+            grams[i++] = gram;
+        }
+        Arrays.sort(grams);
+        termsOfGram = new int[grams.length][];
+        for (i = 0; i < grams.length; i++) {
+            termsOfGram[i] = termsByGram.get(grams[i]).toArray();
+        }
+    }
+
+    /**
+     * Split a text into its words, the maximal runs of letters and digits.
+     * @param text the text to split
+     * @return the words of the text, in order of appearance
+     */
+    public static List<String> tokenize(String text)
+    {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Get the vocabulary of the index.
+     * @return every distinct word of the names, in alphabetical order
+     */
+    public String[] getTerms()
+    {
+        return terms;
+    }
+
+    /**
+     * Get the posting list of a word of the vocabulary.
+     * @param term the position of the word in the vocabulary
+     * @return the sorted positions of the properties whose name contains the word
+     */
+    public int[] getPostings(int term)
+    {
+        return postings[term];
+    }
+
+    /**
+     * Find the properties of a price range whose name may contain the searched expression. Every word of the
+     * expression must be part of a word of the name, so the result is the intersection, for each word of the
+     * expression, of the posting lists of the vocabulary words containing it.
+     * The result can contain properties that do not actually contain the expression (when its words appear
+     * in a different order, for example), the caller checks each of them.
+     * @param searchWord the lower-cased searched expression
+     * @param fromRow the position of the first property of the price range
+     * @param toRow the position following the last property of the price range
+     * @return the sorted positions of the candidate properties, or null if the expression has no word to look up
+     */
+    public int[] candidates(String searchWord, int fromRow, int toRow)
+    {
+        List<String> tokens = tokenize(searchWord);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        int[] result = null;
+        for (String token : tokens) {
+            int[] rows = rowsContaining(token, fromRow, toRow);
+            result = result == null ? rows : intersect(result, rows);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the properties of a price range with a word containing the given token. Only the words of the
+     * vocabulary containing the first characters of the token are checked.
+     * @param token a word of the searched expression
+     * @param fromRow the position of the first property of the price range
+     * @param toRow the position following the last property of the price range
+     * @return the sorted positions of the properties
+     */
+    private int[] rowsContaining(String token, int fromRow, int toRow)
+    {
+        PostingList rows = new PostingList();
+        int gram = Arrays.binarySearch(grams, pack(token, 0, Math.min(2, token.length())));
+        if (gram < 0) {
+            return new int[0];
+        }
+        int matchingTerms = 0;
+        for (int term : termsOfGram[gram]) {
+            // A word containing the first 2 characters of the token may still not contain the whole token
+            if (token.length() <= 2 || terms[term].contains(token)) {
+                int[] posting = postings[term];
+                int from = lowerBound(posting, fromRow);
+                int to = lowerBound(posting, toRow);
+                for (int i = from; i < to; i++) {
+                    rows.add(posting[i]);
+                }
+                matchingTerms++;
+            }
+        }
+        int[] result = rows.toArray();
+        if (matchingTerms > 1) {
+            result = sortedDistinct(result);
+        }
+        return result;
+    }
+
+    /**
+     * Intersect two sorted lists of positions.
+     */
+    private static int[] intersect(int[] first, int[] second)
+    {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Sort a list of positions and remove the duplicates.
+     */
+    private static int[] sortedDistinct(int[] rows)
+    {
+        Arrays.sort(rows);
+        int size = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (size == 0 || rows[size - 1] != rows[i]) {
+                rows[size++] = rows[i];
+            }
+        }
+        return Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * Pack 1 or 2 characters starting at the given index of a text into an int. The sequences of 2 characters
+     * start with a letter or digit (never 0), so they never collide with the single characters.
+     */
+    private static int pack(String text, int index, int length)
+    {
+        return length == 1 ? text.charAt(index) : (text.charAt(index) << 16) | text.charAt(index + 1);
+    }
+
+    /**
+     * Binary search of the first element of a sorted array that is not smaller than the given value.
+     */
+    private static int lowerBound(int[] sorted, int value)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
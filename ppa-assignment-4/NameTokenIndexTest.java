@@ -0,0 +1,47 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class NameTokenIndexTest {
+
+    // The properties indexed by the tested NameTokenIndex
+    PriceIndex TestIndex = new PriceIndex(SyntheticListings.create(20000, 4));
+    // Instance of the tested NameTokenIndex class
+    NameTokenIndex TestTokenIndex = new NameTokenIndex(TestIndex);
+
+    /**
+     * Test that the candidates() method finds, for short and long words, the properties of the price range with
+     * a word of the vocabulary containing each searched word, as a scan of the whole vocabulary finds them.
+     */
+    @Test
+    public void candidatesEqualVocabularyScan() {
+        String[] searchWords = {"o", "7", "po", "ol", "zq", "pool", "ool", "sy fl", "a b", "garden view"};
+        int[][] rowRanges = {{0, TestIndex.size()}, {1000, 5000}, {300, 300}};
+        for (String searchWord : searchWords) {
+            for (int[] range : rowRanges) {
+                int[] expected = null;
+                for (String token : NameTokenIndex.tokenize(searchWord)) {
+                    int[] rows = rowsContaining(token, range[0], range[1]);
+                    expected = expected == null ? rows : Arrays.stream(expected)
+                            .filter(row -> Arrays.binarySearch(rows, row) >= 0).toArray();
+                }
+                assertArrayEquals(searchWord, expected, TestTokenIndex.candidates(searchWord, range[0], range[1]));
+            }
+        }
+    }
+
+    /**
+     * Find the rows of a range with a word containing a token, going through the whole vocabulary.
+     */
+    private int[] rowsContaining(String token, int fromRow, int toRow) {
+        String[] terms = TestTokenIndex.getTerms();
+        return IntStream.range(0, terms.length)
+                .filter(term -> terms[term].contains(token))
+                .flatMap(term -> Arrays.stream(TestTokenIndex.getPostings(term)))
+                .filter(row -> row >= fromRow && row < toRow)
+                .sorted().distinct().toArray();
+    }
+}
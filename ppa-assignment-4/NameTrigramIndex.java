@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a trigram index of the names of the properties: for every sequence of 3 consecutive characters
+ * of the lower-cased names, the sorted positions of the properties whose name contains it. A name can only
+ * contain an expression if it contains all of its trigrams, so intersecting their posting lists narrows down
+ * the properties to check for any expression of 3 characters or more, wherever it starts in a word.
+ * @author Tihomir Stefanov
+ */
+public class NameTrigramIndex {
+
+    // The length of the character sequences indexed
+    public static final int GRAM_LENGTH = 3;
+
+    // Every distinct trigram (3 characters packed in a long), in increasing order
+    private long[] trigrams;
+    // The posting list of each trigram, in the same order as the trigrams
+    private int[][] postings;
+
+    /**
+     * Index the names of the properties.
+     * @param priceIndex the properties, the positions in the posting lists are positions in this index
+     */
+    public NameTrigramIndex(PriceIndex priceIndex)
+    {
+        Map<Long, PostingList> postingsByTrigram = new HashMap<>();
+        for (int row = 0; row < priceIndex.size(); row++) {
+            String name = priceIndex.get(row).getName().toLowerCase();
+            for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+                postingsByTrigram.computeIfAbsent(pack(name, i), t -> new PostingList()).add(row);
+            }
+        }
+
+        trigrams = new long[postingsByTrigram.size()];
+        int i = 0;
+        for (Long trigram : postingsByTrigram.keySet()) {
+            trigrams[i++] = trigram;
+        }
+        Arrays.sort(trigrams);
+        postings = new int[trigrams.length][];
+        for (i = 0; i < trigrams.length; i++) {
+            postings[i] = postingsByTrigram.get(trigrams[i]).toArray();
+        }
+    }
+
+    /**
+     * Find the properties of a price range whose name contains all the trigrams of the searched expression.
+     * The caller still has to check that the name contains the expression itself.
+     * @param searchWord the lower-cased searched expression
+     * @param fromRow the position of the first property of the price range
+     * @param toRow the position following the last property of the price range
+     * @return the sorted positions of the candidate properties, or null if the expression is shorter than a trigram
+     */
+    public int[] candidates(String searchWord, int fromRow, int toRow)
+    {
+        int count = searchWord.length() - GRAM_LENGTH + 1;
+        if (count <= 0) {
+            return null;
+        }
+
+        // The part of the posting list of each trigram of the expression that is in the price range
+        int[][] lists = new int[count][];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = Arrays.binarySearch(trigrams, pack(searchWord, i));
+            if (position < 0) {
+                return new int[0];
+            }
+            lists[i] = postings[position];
+            starts[i] = lowerBound(lists[i], fromRow);
+            ends[i] = lowerBound(lists[i], toRow);
+        }
+
+        // Start from the shortest list, every candidate must be in all the other lists
+        int shortest = 0;
+        for (int i = 1; i < count; i++) {
+            if (ends[i] - starts[i] < ends[shortest] - starts[shortest]) {
+                shortest = i;
+            }
+        }
+        int[] result = new int[ends[shortest] - starts[shortest]];
+        int size = 0;
+        for (int k = starts[shortest]; k < ends[shortest]; k++) {
+            int row = lists[shortest][k];
+            boolean inAll = true;
+            for (int i = 0; i < count && inAll; i++) {
+                if (i != shortest) {
+                    // The rows are increasing, so each list is only ever searched forward
+                    starts[i] = lowerBound(lists[i], starts[i], ends[i], row);
+                    inAll = starts[i] < ends[i] && lists[i][starts[i]] == row;
+                }
+            }
+            if (inAll) {
+                result[size++] = row;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Pack the 3 characters starting at the given index of a text into a long.
+     */
+    private static long pack(String text, int index)
+    {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Binary search of the first element of a sorted array that is not smaller than the given value.
+     */
+    private static int lowerBound(int[] sorted, int value)
+    {
+        return lowerBound(sorted, 0, sorted.length, value);
+    }
+
+    /**
+     * Binary search, between two indexes, of the first element of a sorted array that is not smaller than the given value.
+     */
+    private static int lowerBound(int[] sorted, int low, int high, int value)
+    {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,397 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents the loaded properties outside of the Java heap, so that data sets larger than the heap can be loaded
+ * and the garbage collector never has to scan them. Each property is a fixed-width row in pages of direct memory,
+ * its text fields are stored once in a separate string heap (also in direct memory) and the row keeps their offsets.
+ * The borough and the room type are small codes into dictionaries of their values, as in a ListingTable.
+ * Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the size of the heap: set it above the
+ * size of the data set (about 100 bytes per property plus the length of its texts).
+ * @author Tihomir Stefanov
+ */
+public class OffHeapListingStore implements ListingColumns {
+
+    // The layout of a row: the doubles, the offsets of the strings in the string heap, then the ints
+    private static final int LATITUDE = 0;
+    private static final int LONGITUDE = 8;
+    private static final int REVIEWS_PER_MONTH = 16;
+    private static final int ID = 24;
+    private static final int NAME = 32;
+    private static final int HOST_ID = 40;
+    private static final int HOST_NAME = 48;
+    private static final int LAST_REVIEW = 56;
+    private static final int PRICE = 64;
+    private static final int MINIMUM_NIGHTS = 68;
+    private static final int NUMBER_OF_REVIEWS = 72;
+    private static final int CALCULATED_HOST_LISTINGS_COUNT = 76;
+    private static final int AVAILABILITY_365 = 80;
+    private static final int NEIGHBOURHOOD_CODE = 84;
+    private static final int ROOM_TYPE_CODE = 88;
+    // The width of a row, rounded up so that the doubles stay aligned
+    private static final int ROW_BYTES = 96;
+    // The number of rows per page of rows is 2^ROWS_PER_PAGE_SHIFT (48 MB pages)
+    private static final int ROWS_PER_PAGE_SHIFT = 19;
+    private static final int ROW_MASK = (1 << ROWS_PER_PAGE_SHIFT) - 1;
+
+    // The pages of rows (an array rather than a list, as every access to a field goes through it)
+    private ByteBuffer[] rowPages = new ByteBuffer[0];
+    // The number of properties
+    private int size;
+    // The text fields of the properties
+    private StringHeap strings;
+    // The distinct boroughs and room types, with their codes
+    private StringDictionary neighbourhoodDictionary = new StringDictionary();
+    private StringDictionary roomTypeDictionary = new StringDictionary();
+    // A read-only view of the properties, as light AirbnbListings
+    private List<AirbnbListing> rows = new RowList();
+
+    /**
+     * Create an empty store.
+     */
+    public OffHeapListingStore()
+    {
+        strings = new StringHeap();
+    }
+
+    /**
+     * Add properties at the end of the store. Only the store keeps them, the objects can be collected afterwards.
+     * @param listings the properties to add
+     */
+    public void addAll(List<AirbnbListing> listings)
+    {
+        for (AirbnbListing listing : listings) {
+            add(listing);
+        }
+    }
+
+    /**
+     * Add a property at the end of the store.
+     * @param listing the property to add
+     */
+    public void add(AirbnbListing listing)
+    {
+        ByteBuffer page = pageForNewRow();
+        int offset = (size & ROW_MASK) * ROW_BYTES;
+        page.putDouble(offset + LATITUDE, listing.getLatitude());
+        page.putDouble(offset + LONGITUDE, listing.getLongitude());
+        page.putDouble(offset + REVIEWS_PER_MONTH, listing.getReviewsPerMonth());
+        page.putLong(offset + ID, strings.add(listing.getId()));
+        page.putLong(offset + NAME, strings.add(listing.getName()));
+        page.putLong(offset + HOST_ID, strings.add(listing.getHost_id()));
+        page.putLong(offset + HOST_NAME, strings.add(listing.getHost_name()));
+        page.putLong(offset + LAST_REVIEW, strings.add(listing.getLastReview()));
+        page.putInt(offset + PRICE, listing.getPrice());
+        page.putInt(offset + MINIMUM_NIGHTS, listing.getMinimumNights());
+        page.putInt(offset + NUMBER_OF_REVIEWS, listing.getNumberOfReviews());
+        page.putInt(offset + CALCULATED_HOST_LISTINGS_COUNT, listing.getCalculatedHostListingsCount());
+        page.putInt(offset + AVAILABILITY_365, listing.getAvailability365());
+        page.putInt(offset + NEIGHBOURHOOD_CODE, neighbourhoodDictionary.encode(listing.getNeighbourhood()));
+        page.putInt(offset + ROOM_TYPE_CODE, roomTypeDictionary.encode(listing.getRoom_type()));
+        size++;
+    }
+
+    /**
+     * Sort the store by price, in place. Properties with the same price keep their order.
+     * The rows are moved within their pages, so that sorting needs no second copy of the rows in direct memory.
+     */
+    public void sortByPrice()
+    {
+        // The price in the high bits and the row in the low bits: sorting the keys is a stable sort of the rows
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) getPrice(row) << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        // Row i takes the row of keys[i]: follow each cycle of this permutation, keeping its first row aside
+        BitSet placed = new BitSet(size);
+        byte[] first = new byte[ROW_BYTES];
+        for (int start = 0; start < size; start++) {
+            if (placed.get(start)) {
+                continue;
+            }
+            pageOf(start).get(offsetOf(start), first);
+            int row = start;
+            int next = (int) keys[row];
+            while (next != start) {
+                pageOf(row).put(offsetOf(row), pageOf(next), offsetOf(next), ROW_BYTES);
+                placed.set(row);
+                row = next;
+                next = (int) keys[row];
+            }
+            pageOf(row).put(offsetOf(row), first);
+            placed.set(row);
+        }
+    }
+
+    /**
+     * Get the properties as AirbnbListings. Each property is read from the store when it is accessed.
+     * @return a read-only list of the properties
+     */
+    public List<AirbnbListing> asList()
+    {
+        return rows;
+    }
+
+    /**
+     * Get the number of bytes of direct memory used by the store.
+     * @return the size of the pages of rows and of the string heap, in bytes
+     */
+    public long getOffHeapBytes()
+    {
+        return (long) rowPages.length * (ROW_BYTES << ROWS_PER_PAGE_SHIFT) + strings.getBytes();
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public String[] getNeighbourhoodDictionary()
+    {
+        return neighbourhoodDictionary.toArray();
+    }
+
+    @Override
+    public int getNeighbourhoodCode(int row)
+    {
+        return pageOf(row).getInt(offsetOf(row) + NEIGHBOURHOOD_CODE);
+    }
+
+    @Override
+    public String[] getRoomTypeDictionary()
+    {
+        return roomTypeDictionary.toArray();
+    }
+
+    @Override
+    public int getRoomTypeCode(int row)
+    {
+        return pageOf(row).getInt(offsetOf(row) + ROOM_TYPE_CODE);
+    }
+
+    /**
+     * Get the code of a room type.
+     * @param roomType the room type
+     * @return the code of the room type, or -1 if no property has this room type
+     */
+    public int findRoomTypeCode(String roomType)
+    {
+        return roomTypeDictionary.find(roomType);
+    }
+
+    // The fields of the property at a position, as returned by the getters of AirbnbListing (see ListingColumns)
+
+    @Override
+    public String getId(int row) {
+        return strings.get(pageOf(row).getLong(offsetOf(row) + ID));
+    }
+
+    @Override
+    public String getName(int row) {
+        return strings.get(pageOf(row).getLong(offsetOf(row) + NAME));
+    }
+
+    @Override
+    public String getHost_id(int row) {
+        return strings.get(pageOf(row).getLong(offsetOf(row) + HOST_ID));
+    }
+
+    @Override
+    public String getHost_name(int row) {
+        return strings.get(pageOf(row).getLong(offsetOf(row) + HOST_NAME));
+    }
+
+    @Override
+    public String getNeighbourhood(int row) {
+        return neighbourhoodDictionary.get(getNeighbourhoodCode(row));
+    }
+
+    @Override
+    public double getLatitude(int row) {
+        return pageOf(row).getDouble(offsetOf(row) + LATITUDE);
+    }
+
+    @Override
+    public double getLongitude(int row) {
+        return pageOf(row).getDouble(offsetOf(row) + LONGITUDE);
+    }
+
+    @Override
+    public String getRoom_type(int row) {
+        return roomTypeDictionary.get(getRoomTypeCode(row));
+    }
+
+    @Override
+    public int getPrice(int row) {
+        return pageOf(row).getInt(offsetOf(row) + PRICE);
+    }
+
+    @Override
+    public int getMinimumNights(int row) {
+        return pageOf(row).getInt(offsetOf(row) + MINIMUM_NIGHTS);
+    }
+
+    @Override
+    public int getNumberOfReviews(int row) {
+        return pageOf(row).getInt(offsetOf(row) + NUMBER_OF_REVIEWS);
+    }
+
+    @Override
+    public String getLastReview(int row) {
+        return strings.get(pageOf(row).getLong(offsetOf(row) + LAST_REVIEW));
+    }
+
+    @Override
+    public double getReviewsPerMonth(int row) {
+        return pageOf(row).getDouble(offsetOf(row) + REVIEWS_PER_MONTH);
+    }
+
+    @Override
+    public int getCalculatedHostListingsCount(int row) {
+        return pageOf(row).getInt(offsetOf(row) + CALCULATED_HOST_LISTINGS_COUNT);
+    }
+
+    @Override
+    public int getAvailability365(int row) {
+        return pageOf(row).getInt(offsetOf(row) + AVAILABILITY_365);
+    }
+
+
+    /**
+     * Get the page in which the next row is written, allocating a new page when the last one is full.
+     */
+    private ByteBuffer pageForNewRow()
+    {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The store is full");
+        }
+        int page = size >>> ROWS_PER_PAGE_SHIFT;
+        if (page == rowPages.length) {
+            rowPages = Arrays.copyOf(rowPages, page + 1);
+            rowPages[page] = ByteBuffer.allocateDirect(ROW_BYTES << ROWS_PER_PAGE_SHIFT).order(ByteOrder.nativeOrder());
+        }
+        return rowPages[page];
+    }
+
+    /**
+     * Get the page holding a row.
+     */
+    private ByteBuffer pageOf(int row)
+    {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return rowPages[row >>> ROWS_PER_PAGE_SHIFT];
+    }
+
+    /**
+     * Get the offset of a row in its page.
+     */
+    private static int offsetOf(int row)
+    {
+        return (row & ROW_MASK) * ROW_BYTES;
+    }
+
+    /**
+     * Strings stored one after the other as their length followed by their UTF-8 bytes, in pages of direct memory.
+     * A string is identified by its offset: the number of its page in the high bits, its position in the low bits.
+     */
+    private static class StringHeap
+    {
+        // The size of a page is 2^PAGE_SHIFT bytes (16 MB), a longer string gets a page of its own
+        private static final int PAGE_SHIFT = 24;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+        // The offset stored for a null string
+        private static final long NULL = -1;
+
+        // The pages of the heap
+        private List<ByteBuffer> pages = new ArrayList<>();
+        // The position at which the next string is written in the last page
+        private int position = PAGE_SIZE;
+        // The number of bytes allocated for the pages
+        private long bytes;
+
+        /**
+         * Store a string.
+         * @return the offset of the string
+         */
+        long add(String string)
+        {
+            if (string == null) {
+                return NULL;
+            }
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            int length = Integer.BYTES + encoded.length;
+            if (position + length > PAGE_SIZE || position + length < 0) {
+                ByteBuffer page = ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, length)).order(ByteOrder.nativeOrder());
+                pages.add(page);
+                bytes += page.capacity();
+                position = 0;
+            }
+            ByteBuffer page = pages.get(pages.size() - 1);
+            page.putInt(position, encoded.length);
+            page.put(position + Integer.BYTES, encoded);
+            long offset = ((long) (pages.size() - 1) << PAGE_SHIFT) | position;
+            // A page holding a longer string is full, the next string starts a new page
+            position = length > PAGE_SIZE ? PAGE_SIZE : position + length;
+            return offset;
+        }
+
+        /**
+         * Read a string.
+         * @param offset the offset returned when the string was stored
+         * @return the string
+         */
+        String get(long offset)
+        {
+            if (offset == NULL) {
+                return null;
+            }
+            ByteBuffer page = pages.get((int) (offset >>> PAGE_SHIFT));
+            int position = (int) offset & (PAGE_SIZE - 1);
+            byte[] encoded = new byte[page.getInt(position)];
+            page.get(position + Integer.BYTES, encoded);
+            return new String(encoded, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Get the number of bytes allocated for the pages.
+         */
+        long getBytes()
+        {
+            return bytes;
+        }
+    }
+
+    /**
+     * The properties of the store as a read-only list of ListingRows.
+     */
+    private class RowList extends AbstractList<AirbnbListing> implements RandomAccess
+    {
+        @Override
+        public AirbnbListing get(int row)
+        {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            return new ListingRow(OffHeapListingStore.this, row);
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
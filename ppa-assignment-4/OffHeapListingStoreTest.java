@@ -0,0 +1,67 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OffHeapListingStoreTest {
+
+    /**
+     * Test that the rows of the store return the fields of the stored properties, over several pages of rows.
+     */
+    @Test
+    public void asList() {
+        List<AirbnbListing> listings = SyntheticListings.create(600000, 3);
+        OffHeapListingStore store = new OffHeapListingStore();
+        store.addAll(listings);
+        List<AirbnbListing> rows = store.asList();
+        assertEquals(listings.size(), rows.size());
+        for (int i = 0; i < listings.size(); i += 997) {
+            assertEquals(listings.get(i).toString(), rows.get(i).toString());
+        }
+        assertEquals(listings.get(599999).toString(), rows.get(599999).toString());
+        assertEquals(rows.get(5), store.asList().get(5));
+    }
+
+    /**
+     * Test of the sortByPrice() method, properties with the same price keep their order.
+     */
+    @Test
+    public void sortByPrice() {
+        OffHeapListingStore store = new OffHeapListingStore();
+        store.add(new ListingRecord("1", "Flat", "10", "Anna", "Enfield", 51.6, -0.1, "Private room", 50, 1, 3, "", 0.5, 1, 100));
+        store.add(new ListingRecord("2", "H\u00f4tel", "11", "Ben", "Camden", 51.5, -0.2, "Entire home/apt", 30, 2, 7, "2019-01-15", 1.5, 1, 200));
+        store.add(new ListingRecord("3", "Room", "12", "Cleo", "Enfield", 51.5, -0.1, "Private room", 50, 1, 0, "", -1, 1, 10));
+        store.sortByPrice();
+        assertEquals("2", store.getId(0));
+        assertEquals("H\u00f4tel", store.getName(0));
+        assertEquals("Camden", store.getNeighbourhood(0));
+        assertEquals(1, store.getRoomTypeCode(0));
+        assertEquals(1, store.findRoomTypeCode("Entire home/apt"));
+        assertEquals("1", store.getId(1));
+        assertEquals("3", store.getId(2));
+        assertEquals(10, store.getAvailability365(2));
+    }
+
+    /**
+     * Test that sorting a store over several pages of rows moves each row as a stable sort would,
+     * without using more direct memory.
+     */
+    @Test
+    public void sortByPriceOverPages() {
+        List<AirbnbListing> listings = SyntheticListings.create(600000, 5);
+        OffHeapListingStore store = new OffHeapListingStore();
+        store.addAll(listings);
+        long bytes = store.getOffHeapBytes();
+        store.sortByPrice();
+        List<AirbnbListing> sorted = new ArrayList<>(listings);
+        sorted.sort(Comparator.comparingInt(AirbnbListing::getPrice));
+        for (int i = 0; i < sorted.size(); i += 991) {
+            assertEquals(sorted.get(i).toString(), store.asList().get(i).toString());
+        }
+        assertEquals(sorted.get(599999).toString(), store.asList().get(599999).toString());
+        assertEquals(bytes, store.getOffHeapBytes());
+    }
+}
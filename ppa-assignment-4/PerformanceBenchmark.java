@@ -0,0 +1,519 @@
+import com.opencsv.CSVReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmarks of the data structures behind the application, on synthetic data sets of different sizes.
+ * Run the main method with a large heap (-Xmx4g) for the biggest data sets. The timings are only indicative,
+ * each measurement is repeated after a warm-up so that the JIT compiler has already compiled the measured code.
+ * @author Tihomir Stefanov
+ */
+public class PerformanceBenchmark {
+
+    // The sizes of the synthetic data sets
+    private static final int[] SIZES = {50_000, 5_000_000};
+    // The size of the synthetic data set used to compare searches
+    private static final int SEARCH_SIZE = 1_000_000;
+    // The number of rows of the synthetic csv file used to compare the parsers
+    private static final int CSV_SIZE = 1_000_000;
+    // The positions of the numeric fields in a row of the csv file, and whether each of them is a decimal number
+    private static final int[] NUMERIC_FIELDS = {5, 6, 8, 9, 10, 12, 13, 14};
+    private static final boolean[] DECIMAL_FIELDS = {true, true, false, false, false, true, false, false};
+    // The expressions searched when comparing searches
+    private static final String[] SEARCH_WORDS = {"pool", "swimmingpool", "ool", "cosy flat", "victorian garden", "zz"};
+
+    // Prevents the JIT compiler from removing the measured work
+    private static long blackhole;
+
+    /**
+     * Run all the benchmarks.
+     * @param args not used
+     * @throws IOException if the synthetic csv file cannot be parsed
+     */
+    public static void main(String[] args) throws IOException {
+        for (int size : SIZES) {
+            System.out.println("=== " + size + " properties ===");
+            List<AirbnbListing> listings = SyntheticListings.create(size, 42);
+            benchmarkIdLookup(listings);
+            benchmarkStatistics(listings);
+            benchmarkTable(listings);
+            listings = null;
+            benchmarkOffHeap(size);
+        }
+        System.out.println("=== " + SEARCH_SIZE + " properties ===");
+        benchmarkSearch(SyntheticListings.create(SEARCH_SIZE, 42));
+        System.out.println("=== " + CSV_SIZE + " csv rows ===");
+        benchmarkCsvParsing(SyntheticListings.create(CSV_SIZE, 42));
+        benchmarkLazyText(SyntheticListings.create(CSV_SIZE, 42));
+    }
+
+    /**
+     * Compare finding properties by id with a linear scan (as MapInfo used to) and with the id index.
+     * @param listings the properties to search
+     */
+    private static void benchmarkIdLookup(List<AirbnbListing> listings) {
+        Random random = new Random(7);
+        String[] ids = new String[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = listings.get(random.nextInt(listings.size())).getId();
+        }
+
+        long start = System.nanoTime();
+        ListingIdIndex index = new ListingIdIndex(listings);
+        System.out.println("id index build: " + millis(System.nanoTime() - start) + " ms");
+
+        int scanLookups = listings.size() > 1_000_000 ? 20 : 200;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int i = 0; i < scanLookups; i++) {
+                for (AirbnbListing listing : listings) {
+                    if (listing.getId().equals(ids[i])) {
+                        blackhole += listing.getPrice();
+                        break;
+                    }
+                }
+            }
+            long scan = (System.nanoTime() - start) / scanLookups;
+
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 1000; repeat++) {
+                for (String id : ids) {
+                    blackhole += index.findRow(id);
+                }
+            }
+            long indexed = (System.nanoTime() - start) / (1000L * ids.length);
+            if (round == 1) {
+                System.out.println("id lookup: linear scan " + scan + " ns, id index " + indexed + " ns");
+            }
+        }
+    }
+
+    /**
+     * Compare computing the statistics of price ranges with a pass over each range and with the listing cube,
+     * and the median booking expense with a sort of each range and with the quantile histograms.
+     * @param listings the properties
+     */
+    private static void benchmarkStatistics(List<AirbnbListing> listings) {
+        PriceIndex priceIndex = new PriceIndex(listings);
+        long start = System.nanoTime();
+        ListingCube cube = new ListingCube(priceIndex);
+        System.out.println("listing cube build: " + millis(System.nanoTime() - start) + " ms");
+
+        int[][] priceRanges = {{0, 10000}, {50, 200}, {100, 100}};
+        for (int[] range : priceRanges) {
+            long scan = 0;
+            long precomputed = 0;
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                blackhole += new ListingStatistics(priceIndex.getRange(range[0], range[1])).getCount();
+                scan = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                blackhole += cube.getStatistics(range[0], range[1]).getCount();
+                precomputed = System.nanoTime() - start;
+            }
+            System.out.println("statistics " + range[0] + "-" + range[1] + ": single pass " + micros(scan)
+                    + " us, cube " + micros(precomputed) + " us");
+        }
+
+        start = System.nanoTime();
+        PriceRangeQuantiles rangeQuantiles = new PriceRangeQuantiles(priceIndex);
+        System.out.println("quantile histograms build: " + millis(System.nanoTime() - start) + " ms");
+        for (int[] range : priceRanges) {
+            long sorted = 0;
+            long histograms = 0;
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                long[] expenses = priceIndex.getRange(range[0], range[1]).stream()
+                        .mapToLong(property -> (long) property.getPrice() * property.getMinimumNights()).sorted().toArray();
+                blackhole += expenses.length == 0 ? 0 : expenses[expenses.length / 2];
+                sorted = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                blackhole += rangeQuantiles.getExpenses(null, range[0], range[1]).getValueAtQuantile(0.5);
+                histograms = System.nanoTime() - start;
+            }
+            System.out.println("median expense " + range[0] + "-" + range[1] + ": sort " + micros(sorted)
+                    + " us, histograms " + micros(histograms) + " us");
+        }
+    }
+
+    /**
+     * Compare the heap used by the properties as AirbnbListing objects and as a ListingTable, each grouped by
+     * borough on the map, and the time of counting the entire homes and of grouping the properties by borough,
+     * comparing strings for the objects and codes for the rows of the table. The text fields which both keep
+     * (the ids, names and host ids) are not counted.
+     * @param listings the properties
+     */
+    private static void benchmarkTable(List<AirbnbListing> listings) {
+        long before = usedHeap();
+        // The csv parser allocates a new String for every field, so the repeated values are not shared
+        List<AirbnbListing> parsed = new ArrayList<>(listings.size());
+        for (AirbnbListing listing : listings) {
+            parsed.add(new ListingRecord(listing.getId(), listing.getName(), listing.getHost_id(),
+                    new String(listing.getHost_name()), new String(listing.getNeighbourhood()), listing.getLatitude(),
+                    listing.getLongitude(), new String(listing.getRoom_type()), listing.getPrice(),
+                    listing.getMinimumNights(), listing.getNumberOfReviews(), new String(listing.getLastReview()),
+                    listing.getReviewsPerMonth(), listing.getCalculatedHostListingsCount(),
+                    listing.getAvailability365()));
+        }
+        MapInfo objectMapInfo = createMapInfo();
+        objectMapInfo.setPropertyData(parsed);
+        long objects = usedHeap() - before;
+        ListingTable table = new ListingTable(parsed);
+        MapInfo tableMapInfo = createMapInfo();
+        tableMapInfo.setPropertyData(table.asList());
+        long both = usedHeap() - before;
+        blackhole += objectMapInfo.getPropertyList(SyntheticListings.BOROUGHS[0]).size()
+                + tableMapInfo.getPropertyList(SyntheticListings.BOROUGHS[0]).size();
+        long scan = 0;
+        long columns = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (AirbnbListing listing : parsed) {
+                if (listing.getRoom_type().equals("Entire home/apt")) {
+                    count++;
+                }
+            }
+            scan = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int code = Arrays.asList(table.getRoomTypeDictionary()).indexOf("Entire home/apt");
+            for (int row = 0; row < table.size(); row++) {
+                if (table.getRoomTypeCode(row) == code) {
+                    count--;
+                }
+            }
+            columns = System.nanoTime() - start;
+            blackhole += count;
+        }
+
+        MapInfo mapInfo = createMapInfo();
+        long objectMap = 0;
+        long tableMap = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            mapInfo.setPropertyData(parsed);
+            objectMap = System.nanoTime() - start;
+            blackhole += mapInfo.getNumberOfOccurrences(SyntheticListings.BOROUGHS[0]);
+
+            start = System.nanoTime();
+            mapInfo.setPropertyData(table.asList());
+            tableMap = System.nanoTime() - start;
+            blackhole += mapInfo.getNumberOfOccurrences(SyntheticListings.BOROUGHS[0]);
+        }
+        System.out.println("heap with the map: objects " + megabytes(objects) + " MB, table "
+                + megabytes(both - objects) + " MB");
+        System.out.println("entire homes: object scan " + micros(scan) + " us, column scan " + micros(columns) + " us");
+        System.out.println("map boroughs: objects " + micros(objectMap) + " us, table rows " + micros(tableMap) + " us");
+    }
+
+    /**
+     * Compare the on-heap list of AirbnbListing objects with the off-heap store: the heap used (with the price
+     * index and the borough partition of the map), the direct memory before and after sorting, the time of a full
+     * garbage collection and the throughput of a full scan filtering the properties on their price, room type and
+     * minimum number of nights.
+     * @param size the number of properties
+     */
+    private static void benchmarkOffHeap(int size) {
+        long before = usedHeap();
+        List<AirbnbListing> listings = SyntheticListings.create(size, 42);
+        MapInfo objectMapInfo = createMapInfo();
+        objectMapInfo.setPropertyData(new PriceIndex(listings).getAll());
+        long objects = usedHeap() - before;
+        long objectsPause = fullCollection();
+        long objectsScan = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (AirbnbListing listing : listings) {
+                if (listing.getPrice() >= 50 && listing.getPrice() <= 200 && listing.getMinimumNights() <= 3
+                        && listing.getRoom_type().equals("Entire home/apt")) {
+                    count++;
+                }
+            }
+            objectsScan = System.nanoTime() - start;
+            blackhole += count;
+        }
+
+        OffHeapListingStore store = new OffHeapListingStore();
+        store.addAll(listings);
+        listings = null;
+        objectMapInfo = null;
+        long unsortedBytes = store.getOffHeapBytes();
+        MapInfo storeMapInfo = createMapInfo();
+        storeMapInfo.setPropertyData(new PriceIndex(store).getAll());
+        long offHeap = usedHeap() - before;
+        long offHeapPause = fullCollection();
+        long offHeapScan = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int count = 0;
+            int code = store.findRoomTypeCode("Entire home/apt");
+            for (int row = 0; row < store.size(); row++) {
+                int price = store.getPrice(row);
+                if (price >= 50 && price <= 200 && store.getMinimumNights(row) <= 3
+                        && store.getRoomTypeCode(row) == code) {
+                    count++;
+                }
+            }
+            offHeapScan = System.nanoTime() - start;
+            blackhole += count;
+        }
+        System.out.println("heap: objects " + megabytes(objects) + " MB, off-heap store " + megabytes(offHeap)
+                + " MB (+ " + megabytes(store.getOffHeapBytes()) + " MB direct memory), with the price index and the map");
+        System.out.println("direct memory: before sorting " + megabytes(unsortedBytes) + " MB, after sorting "
+                + megabytes(store.getOffHeapBytes()) + " MB");
+        blackhole += storeMapInfo.getPropertyList(SyntheticListings.BOROUGHS[0]).size();
+        System.out.println("full gc: objects " + millis(objectsPause) + " ms, off-heap store "
+                + millis(offHeapPause) + " ms");
+        System.out.println("filter scan: objects " + size * 1000L / Math.max(1, objectsScan) + " M rows/s, off-heap store "
+                + size * 1000L / Math.max(1, offHeapScan) + " M rows/s");
+    }
+
+    /**
+     * Compare the memory allocated and the time taken to parse the numeric fields of the rows of a csv file, with
+     * opencsv and the conversions the loader used to make (a String per field, then a boxed number), and with the
+     * scanner reading the numbers from the bytes of the file.
+     * @param listings the properties written to the csv file
+     * @throws IOException if the csv file cannot be parsed
+     */
+    private static void benchmarkCsvParsing(List<AirbnbListing> listings) throws IOException {
+        byte[] bytes = syntheticCsv(listings).getBytes(StandardCharsets.UTF_8);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int round = 0; round < 3; round++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            CSVReader reader = new CSVReader(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                for (int i = 0; i < NUMERIC_FIELDS.length; i++) {
+                    String field = line[NUMERIC_FIELDS[i]];
+                    if (field.trim().equals("")) {
+                        blackhole--;
+                    } else if (DECIMAL_FIELDS[i]) {
+                        Double value = Double.parseDouble(field);
+                        blackhole += value.longValue();
+                    } else {
+                        Integer value = Integer.parseInt(field);
+                        blackhole += value;
+                    }
+                }
+            }
+            long opencsv = System.nanoTime() - start;
+            long opencsvBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            allocated = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            CsvRowScanner scanner = new CsvRowScanner(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8, 15);
+            while (scanner.nextRow()) {
+                for (int i = 0; i < NUMERIC_FIELDS.length; i++) {
+                    blackhole += DECIMAL_FIELDS[i] ? (long) scanner.getDouble(NUMERIC_FIELDS[i])
+                            : scanner.getInt(NUMERIC_FIELDS[i]);
+                }
+            }
+            long scanned = System.nanoTime() - start;
+            long scannedBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+            if (round == 2) {
+                System.out.println("numeric fields: opencsv " + opencsvBytes / listings.size() + " bytes/row "
+                        + opencsv / listings.size() + " ns/row, scanner " + scannedBytes / listings.size()
+                        + " bytes/row " + scanned / listings.size() + " ns/row");
+            }
+        }
+    }
+
+    /**
+     * Compare loading a csv file and indexing it by price with every field decoded, and with the names, host names
+     * and dates of the last review read lazily from the file: the time to start, the heap used once started and the
+     * time to then read every name.
+     * @param listings the properties written to the csv file
+     * @throws IOException if the csv file cannot be written or loaded
+     */
+    private static void benchmarkLazyText(List<AirbnbListing> listings) throws IOException {
+        File csvFile = File.createTempFile("listings", ".csv");
+        csvFile.deleteOnExit();
+        Files.write(csvFile.toPath(), ("header\n" + syntheticCsv(listings)).getBytes(Charset.defaultCharset()));
+        listings = null;
+        AirbnbDataLoader loader = new AirbnbDataLoader();
+
+        for (int round = 0; round < 3; round++) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            PriceIndex eager = new PriceIndex(loader.loadTable(csvFile));
+            long eagerStart = System.nanoTime() - start;
+            long eagerHeap = usedHeap() - before;
+            long eagerNames = readNames(eager.getAll());
+            eager = null;
+
+            boolean cached = round == 2;
+            before = usedHeap();
+            start = System.nanoTime();
+            PriceIndex lazy = new PriceIndex(loader.loadLazyTable(csvFile, cached));
+            long lazyStart = System.nanoTime() - start;
+            long lazyHeap = usedHeap() - before;
+            long lazyNames = readNames(lazy.getAll());
+            long lazyNamesAgain = readNames(lazy.getAll());
+            long lazyHeapAfter = usedHeap() - before;
+            lazy = null;
+            if (round >= 1) {
+                System.out.println((cached ? "cached" : "lazy") + " text: start eager " + millis(eagerStart)
+                        + " ms, lazy " + millis(lazyStart) + " ms; heap eager " + megabytes(eagerHeap) + " MB, lazy "
+                        + megabytes(lazyHeap) + " MB (" + megabytes(lazyHeapAfter) + " MB after reading the names)");
+                System.out.println((cached ? "cached" : "lazy") + " text: read all names eager " + millis(eagerNames)
+                        + " ms, lazy " + millis(lazyNames) + " ms then " + millis(lazyNamesAgain) + " ms");
+            }
+        }
+    }
+
+    /**
+     * Read the name of every property.
+     * @return the time taken
+     */
+    private static long readNames(List<AirbnbListing> listings) {
+        long start = System.nanoTime();
+        for (AirbnbListing listing : listings) {
+            blackhole += listing.getName().length();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Compare searching property names with a scan of the price range (as the search panel used to)
+     * and with the search indexes.
+     * @param listings the properties to search
+     */
+    private static void benchmarkSearch(List<AirbnbListing> listings) {
+        PriceIndex priceIndex = new PriceIndex(listings);
+        long start = System.nanoTime();
+        PropertySearch search = new PropertySearch(priceIndex);
+        System.out.println("search index build: " + millis(System.nanoTime() - start) + " ms");
+
+        List<AirbnbListing> range = priceIndex.getRange(0, 10000);
+        for (String searchWord : SEARCH_WORDS) {
+            long scan = 0;
+            long indexed = 0;
+            int matches = 0;
+            for (int round = 0; round < 5; round++) {
+                start = System.nanoTime();
+                matches = 0;
+                for (AirbnbListing listing : range) {
+                    if (listing.getName().toLowerCase().contains(searchWord)) {
+                        matches++;
+                    }
+                }
+                scan = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                blackhole += search.search(searchWord, 0, 10000, null).size();
+                indexed = System.nanoTime() - start;
+            }
+            System.out.println("search \"" + searchWord + "\" (" + matches + " matches): scan "
+                    + micros(scan) + " us, indexed " + micros(indexed) + " us");
+        }
+
+        start = System.nanoTime();
+        HeavyHitters searches = new HeavyHitters(256);
+        for (String searchWord : SEARCH_WORDS) {
+            searches.add(searchWord, -1);
+        }
+        SuggestionTrie suggestionTrie = new SuggestionTrie(search.getTokenIndex(), searches.getCounts());
+        System.out.println("suggestion trie build: " + millis(System.nanoTime() - start) + " ms");
+        String[] prefixes = {"c", "co", "cos", "victorian g", "sw", "zz"};
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int repeat = 0; repeat < 10000; repeat++) {
+                for (String prefix : prefixes) {
+                    blackhole += suggestionTrie.suggest(prefix).size();
+                }
+            }
+            if (round == 1) {
+                System.out.println("suggestions: " + (System.nanoTime() - start) / (10000L * prefixes.length)
+                        + " ns per keystroke");
+            }
+        }
+    }
+
+    /**
+     * Write properties as the rows of a csv file, without the header. The coordinates have 5 decimals.
+     */
+    private static String syntheticCsv(List<AirbnbListing> listings) {
+        StringBuilder csv = new StringBuilder();
+        for (AirbnbListing listing : listings) {
+            csv.append(listing.getId()).append(",\"").append(listing.getName()).append("\",")
+                    .append(listing.getHost_id()).append(',').append(listing.getHost_name()).append(',')
+                    .append(listing.getNeighbourhood()).append(',').append(Math.round(listing.getLatitude() * 1e5) / 1e5)
+                    .append(',').append(Math.round(listing.getLongitude() * 1e5) / 1e5).append(',').append(listing.getRoom_type()).append(',')
+                    .append(listing.getPrice()).append(',').append(listing.getMinimumNights()).append(',')
+                    .append(listing.getNumberOfReviews()).append(',').append(listing.getLastReview()).append(',')
+                    .append(listing.getReviewsPerMonth() < 0 ? "" : String.valueOf(listing.getReviewsPerMonth()))
+                    .append(',').append(listing.getCalculatedHostListingsCount()).append(',')
+                    .append(listing.getAvailability365()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Create the information of a map of the boroughs of the synthetic properties.
+     */
+    private static MapInfo createMapInfo() {
+        MapInfo mapInfo = new MapInfo();
+        for (int i = 0; i < SyntheticListings.BOROUGHS.length; i++) {
+            mapInfo.addBoroughs(i, SyntheticListings.BOROUGHS[i], "0", "0");
+        }
+        return mapInfo;
+    }
+
+    /**
+     * Get the heap used after a garbage collection.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Get the time of a full garbage collection.
+     */
+    private static long fullCollection() {
+        long start = System.nanoTime();
+        System.gc();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Convert bytes to megabytes.
+     */
+    private static long megabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    /**
+     * Convert nanoseconds to milliseconds.
+     */
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * Convert nanoseconds to microseconds.
+     */
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.Arrays;
+
+/**
+ * Represents a growable list of property positions, filled in increasing order of position,
+ * used to build the posting lists of the search indexes.
+ * @author Tihomir Stefanov
+ */
+public class PostingList {
+
+    // The positions added so far (the array has room for more)
+    private int[] rows = new int[4];
+    // The number of positions added
+    private int size;
+
+    /**
+     * Add a position, unless it is already the last one (a word appearing twice in the same name).
+     * @param row the position to add
+     */
+    public void add(int row)
+    {
+        if (size > 0 && rows[size - 1] == row) {
+            return;
+        }
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        rows[size++] = row;
+    }
+
+    /**
+     * Get the positions added.
+     * @return a new array with the positions, in the order they were added
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf(rows, size);
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents all the loaded properties sorted by their price per night, so that the properties of any
+ * price range can be found with two binary searches instead of reloading and filtering the data set.
+ * Properties with the same price keep the order in which they were loaded. The properties are either objects
+ * or the rows of a ListingTable, which is then reordered by price so that a price range is a run of each column,
+ * or the rows of an OffHeapListingStore, which is reordered by price in the same way.
+ * @author Tihomir Stefanov
+ */
+public class PriceIndex {
+
+    // The price of each property, from the cheapest to the most expensive property
+    private int[] prices;
+    // A read-only view of the sorted properties, shared by all the ranges returned
+    private List<AirbnbListing> sortedListings;
+    // The properties sorted by price, column by column, or null if the properties are objects
+    private ListingColumns columns;
+
+    /**
+     * Sort the loaded properties by price.
+     * @param properties all the loaded properties
+     */
+    public PriceIndex(List<AirbnbListing> properties)
+    {
+        AirbnbListing[] listings = properties.toArray(new AirbnbListing[0]);
+        Arrays.sort(listings, Comparator.comparingInt(AirbnbListing::getPrice));
+        prices = new int[listings.length];
+        for (int i = 0; i < listings.length; i++) {
+            prices[i] = listings[i].getPrice();
+        }
+        sortedListings = Collections.unmodifiableList(Arrays.asList(listings));
+    }
+
+    /**
+     * Sort the loaded properties of a table by price.
+     * @param properties all the loaded properties, column by column
+     */
+    public PriceIndex(ListingTable properties)
+    {
+        ListingTable table = properties.sortedByPrice();
+        prices = new int[table.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = table.getPrice(i);
+        }
+        sortedListings = table.asList();
+        columns = table;
+    }
+
+    /**
+     * Sort the loaded properties of an off-heap store by price. The store itself is sorted, in place.
+     * @param properties all the loaded properties, stored outside of the heap
+     */
+    public PriceIndex(OffHeapListingStore properties)
+    {
+        properties.sortByPrice();
+        prices = new int[properties.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = properties.getPrice(i);
+        }
+        sortedListings = properties.asList();
+        columns = properties;
+    }
+
+    /**
+     * Get the properties sorted by price column by column, when the index was created from a table or a store,
+     * so that their codes can be compared instead of their text fields.
+     * @return the columns of the properties (their rows are the positions of the index), or null
+     */
+    public ListingColumns getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * Get every property, from the cheapest to the most expensive.
+     * @return a read-only list of all the properties
+     */
+    public List<AirbnbListing> getAll()
+    {
+        return sortedListings;
+    }
+
+    /**
+     * Get the properties whose price is within the given range. The returned list is a view of the index,
+     * no property is copied.
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return a read-only list of the properties in the price range, from the cheapest to the most expensive
+     */
+    public List<AirbnbListing> getRange(int fromPrice, int toPrice)
+    {
+        int fromRow = getFromRow(fromPrice);
+        return sortedListings.subList(fromRow, Math.max(fromRow, getToRow(toPrice)));
+    }
+
+    /**
+     * Get the property at the given position of the index.
+     * @param row the position of the property, from the cheapest (0) to the most expensive
+     * @return the property at this position
+     */
+    public AirbnbListing get(int row)
+    {
+        return sortedListings.get(row);
+    }
+
+    /**
+     * Get the number of properties in the index.
+     * @return the number of properties
+     */
+    public int size()
+    {
+        return prices.length;
+    }
+
+    /**
+     * Get the position of the first property of a price range.
+     * @param fromPrice the minimum price (included)
+     * @return the position of the cheapest property costing at least fromPrice
+     */
+    public int getFromRow(int fromPrice)
+    {
+        return firstRowAbove(fromPrice - 1);
+    }
+
+    /**
+     * Get the position following the last property of a price range.
+     * @param toPrice the maximum price (included)
+     * @return the position of the cheapest property costing more than toPrice
+     */
+    public int getToRow(int toPrice)
+    {
+        return firstRowAbove(toPrice);
+    }
+
+    /**
+     * Binary search of the first property that is more expensive than the given price.
+     * @param price the price to compare with
+     * @return the index of the first property whose price is above the given price (or the number of properties)
+     */
+    private int firstRowAbove(int price)
+    {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] <= price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
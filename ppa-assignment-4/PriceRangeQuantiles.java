@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents histograms of the prices and the booking expenses (price x minimum nights) of the properties, of all
+ * of them and of each borough, built when the properties are loaded to estimate the quantiles of any price range.
+ * As a price range is a contiguous run of rows of the price index, cumulative histograms are kept every BLOCK_SIZE
+ * rows: the histogram of a price range is the difference of the cumulative histograms of the whole blocks of the
+ * range, plus the few rows at both ends of the range.
+ * @author Tihomir Stefanov
+ */
+public class PriceRangeQuantiles {
+
+    // The number of rows between two cumulative histograms
+    private static final int BLOCK_SIZE = 4096;
+
+    // All the loaded properties, sorted by price
+    private PriceIndex priceIndex;
+    // The boroughs, in alphabetical order
+    private String[] boroughs;
+    // The rows of each borough, in increasing order
+    private int[][] boroughRows;
+    // The largest price
+    private long maxPrice;
+    // The largest booking expense
+    private long maxExpense;
+    // The price counts of the blocks before each block, of all the rows then of the rows of each borough
+    private int[][][] pricesBefore;
+    // The booking expense counts of the blocks before each block, of all the rows then of the rows of each borough
+    private int[][][] expensesBefore;
+
+    /**
+     * Build the cumulative histograms of the properties.
+     * @param priceIndex all the loaded properties, sorted by price
+     */
+    public PriceRangeQuantiles(PriceIndex priceIndex)
+    {
+        this.priceIndex = priceIndex;
+        int size = priceIndex.size();
+        Map<String, PostingList> rowsByBorough = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            AirbnbListing property = priceIndex.get(row);
+            maxPrice = Math.max(maxPrice, property.getPrice());
+            maxExpense = Math.max(maxExpense, expenseOf(property));
+            rowsByBorough.computeIfAbsent(property.getNeighbourhood(), b -> new PostingList()).add(row);
+        }
+        boroughs = rowsByBorough.keySet().toArray(new String[0]);
+        Arrays.sort(boroughs);
+        boroughRows = new int[boroughs.length][];
+        for (int b = 0; b < boroughs.length; b++) {
+            boroughRows[b] = rowsByBorough.get(boroughs[b]).toArray();
+        }
+
+        pricesBefore = new int[boroughs.length + 1][][];
+        expensesBefore = new int[boroughs.length + 1][][];
+        for (int series = 0; series <= boroughs.length; series++) {
+            int[] rows = series == 0 ? null : boroughRows[series - 1];
+            int length = rows == null ? size : rows.length;
+            int[] prices = new int[QuantileHistogram.bucketCount(maxPrice)];
+            int[] expenses = new int[QuantileHistogram.bucketCount(maxExpense)];
+            List<int[]> priceBlocks = new ArrayList<>();
+            List<int[]> expenseBlocks = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                if (i % BLOCK_SIZE == 0) {
+                    priceBlocks.add(prices.clone());
+                    expenseBlocks.add(expenses.clone());
+                }
+                AirbnbListing property = priceIndex.get(rows == null ? i : rows[i]);
+                prices[QuantileHistogram.bucketOf(property.getPrice())]++;
+                expenses[QuantileHistogram.bucketOf(expenseOf(property))]++;
+            }
+            if (length % BLOCK_SIZE == 0) {
+                priceBlocks.add(prices);
+                expenseBlocks.add(expenses);
+            }
+            pricesBefore[series] = priceBlocks.toArray(new int[0][]);
+            expensesBefore[series] = expenseBlocks.toArray(new int[0][]);
+        }
+    }
+
+    /**
+     * Get the histogram of the prices of a price range.
+     * @param borough the borough of the properties, or null for all the boroughs
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the histogram of the prices of the properties
+     */
+    public QuantileHistogram getPrices(String borough, int fromPrice, int toPrice)
+    {
+        return histogramOf(borough, fromPrice, toPrice, false);
+    }
+
+    /**
+     * Get the histogram of the booking expenses (price x minimum nights) of a price range.
+     * @param borough the borough of the properties, or null for all the boroughs
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @return the histogram of the booking expenses of the properties
+     */
+    public QuantileHistogram getExpenses(String borough, int fromPrice, int toPrice)
+    {
+        return histogramOf(borough, fromPrice, toPrice, true);
+    }
+
+    /**
+     * Get the boroughs of the properties.
+     * @return the boroughs, in alphabetical order
+     */
+    public String[] getBoroughs()
+    {
+        return boroughs.clone();
+    }
+
+    /**
+     * Build the histogram of the prices or the booking expenses of a price range.
+     */
+    private QuantileHistogram histogramOf(String borough, int fromPrice, int toPrice, boolean expense)
+    {
+        QuantileHistogram histogram = new QuantileHistogram(expense ? maxExpense : maxPrice);
+        int series = 0;
+        if (borough != null) {
+            series = Arrays.binarySearch(boroughs, borough) + 1;
+            if (series <= 0) {
+                return histogram;
+            }
+        }
+        int[] rows = series == 0 ? null : boroughRows[series - 1];
+        int fromRow = priceIndex.getFromRow(fromPrice);
+        int toRow = Math.max(fromRow, priceIndex.getToRow(toPrice));
+        int first = rows == null ? fromRow : lowerBound(rows, fromRow);
+        int end = rows == null ? toRow : lowerBound(rows, toRow);
+
+        int firstBlock = (first + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int endBlock = end / BLOCK_SIZE;
+        if (firstBlock >= endBlock) {
+            // No whole block in the range
+            addRows(histogram, rows, first, end, expense);
+            return histogram;
+        }
+        int[][] before = expense ? expensesBefore[series] : pricesBefore[series];
+        histogram.addDifference(before[endBlock], before[firstBlock]);
+        addRows(histogram, rows, first, firstBlock * BLOCK_SIZE, expense);
+        addRows(histogram, rows, endBlock * BLOCK_SIZE, end, expense);
+        return histogram;
+    }
+
+    /**
+     * Add the prices or the booking expenses of a run of rows (of a borough, or of all the boroughs if the rows
+     * are null) to a histogram.
+     */
+    private void addRows(QuantileHistogram histogram, int[] rows, int first, int end, boolean expense)
+    {
+        for (int i = first; i < end; i++) {
+            AirbnbListing property = priceIndex.get(rows == null ? i : rows[i]);
+            histogram.add(expense ? expenseOf(property) : property.getPrice());
+        }
+    }
+
+    /**
+     * Get the booking expense (price x minimum nights) of a property.
+     */
+    private static long expenseOf(AirbnbListing property)
+    {
+        return (long) property.getPrice() * property.getMinimumNights();
+    }
+
+    /**
+     * Binary search of the first element of a sorted array that is not smaller than the given value.
+     */
+    private static int lowerBound(int[] sorted, int value)
+    {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
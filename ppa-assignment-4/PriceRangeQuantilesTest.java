@@ -0,0 +1,46 @@
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PriceRangeQuantilesTest {
+
+    // The properties of the tested histograms
+    PriceIndex TestIndex = new PriceIndex(SyntheticListings.create(60000, 5));
+    // Instance of the tested PriceRangeQuantiles class
+    PriceRangeQuantiles TestQuantiles = new PriceRangeQuantiles(TestIndex);
+
+    /**
+     * Test that the histograms of a price range give the same percentiles as histograms built from the properties
+     * of the price range.
+     */
+    @Test
+    public void histogramsEqualScan() {
+        Random random = new Random(13);
+        for (int i = 0; i < 100; i++) {
+            int fromPrice = random.nextInt(400);
+            int toPrice = fromPrice + random.nextInt(i % 2 == 0 ? 20 : 2000);
+            String borough = i % 3 == 0 ? null : "Camden";
+            QuantileHistogram prices = new QuantileHistogram(10000);
+            QuantileHistogram expenses = new QuantileHistogram(1_000_000);
+            List<AirbnbListing> range = TestIndex.getRange(fromPrice, toPrice);
+            for (AirbnbListing property : range) {
+                if (borough == null || property.getNeighbourhood().equals(borough)) {
+                    prices.add(property.getPrice());
+                    expenses.add((long) property.getPrice() * property.getMinimumNights());
+                }
+            }
+
+            QuantileHistogram actualPrices = TestQuantiles.getPrices(borough, fromPrice, toPrice);
+            QuantileHistogram actualExpenses = TestQuantiles.getExpenses(borough, fromPrice, toPrice);
+            assertEquals(prices.getCount(), actualPrices.getCount());
+            for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+                assertEquals(prices.getValueAtQuantile(quantile), actualPrices.getValueAtQuantile(quantile));
+                assertEquals(expenses.getValueAtQuantile(quantile), actualExpenses.getValueAtQuantile(quantile));
+            }
+        }
+        assertEquals(0, TestQuantiles.getPrices("Atlantis", 0, 10000).getCount());
+    }
+}
@@ -13,11 +13,16 @@ public class PropertyButton extends ToggleButton {
 
 
     public PropertyButton(AirbnbListing property, MapInfo mapInfo, ToggleGroup toggleGroup) {
-        super("Host of the property: "+property.getHost_name()
-                + "\nPrice: "+property.getPrice()
-                + "\nNumber of reviews: "+property.getNumberOfReviews()
-                + "\nMinimum nights: "+property.getMinimumNights());
+        this(mapInfo, toggleGroup);
+        setProperty(property);
+    }
 
+    /**
+     * Create a button not showing any property yet, to be reused for different properties.
+     * @param mapInfo The object giving the width of the button
+     * @param toggleGroup The group of buttons of which only one can be selected
+     */
+    public PropertyButton(MapInfo mapInfo, ToggleGroup toggleGroup) {
         setToggleGroup(toggleGroup);
         getStyleClass().add("property-button");
         setPadding(vBoxPadding);
@@ -25,4 +30,15 @@ public class PropertyButton extends ToggleButton {
         setAlignment(Pos.BASELINE_LEFT);
     }
 
+    /**
+     * Show a property on the button.
+     * @param property The property to show
+     */
+    public void setProperty(AirbnbListing property) {
+        setText("Host of the property: "+property.getHost_name()
+                + "\nPrice: "+property.getPrice()
+                + "\nNumber of reviews: "+property.getNumberOfReviews()
+                + "\nMinimum nights: "+property.getMinimumNights());
+    }
+
 }
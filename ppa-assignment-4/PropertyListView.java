@@ -0,0 +1,68 @@
+import javafx.collections.FXCollections;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ToggleGroup;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Represents a list of properties shown as property buttons. Only the rows that are visible have a button:
+ * while scrolling, the buttons of the rows leaving the screen are reused for the rows entering it, so the
+ * number of nodes (and the layout work) does not depend on the number of properties.
+ * Pressing the button of a property selects it, pressing it again deselects it.
+ * @author Tihomir Stefanov
+ */
+public class PropertyListView extends ListView<AirbnbListing> {
+
+    // The buttons of the visible rows, of which only one can be selected
+    private ToggleGroup toggleGroup = new ToggleGroup();
+    // The selected property, or null
+    private AirbnbListing selectedProperty;
+
+    /**
+     * Create an empty list of properties.
+     * @param mapInfo The object giving the width of the buttons
+     * @param selectionHandler Called with the property selected by the user, or with null when it is deselected
+     */
+    public PropertyListView(MapInfo mapInfo, Consumer<AirbnbListing> selectionHandler)
+    {
+        getStyleClass().add("property-list");
+        setPrefWidth(mapInfo.getPrefWidth() + 20);
+        setCellFactory(listView -> new ListCell<AirbnbListing>() {
+            private PropertyButton button = new PropertyButton(mapInfo, toggleGroup);
+
+            {
+                setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+                button.setOnAction(event -> {
+                    selectedProperty = button.isSelected() ? getItem() : null;
+                    selectionHandler.accept(selectedProperty);
+                });
+            }
+
+            @Override
+            protected void updateItem(AirbnbListing property, boolean empty) {
+                super.updateItem(property, empty);
+                if (empty || property == null) {
+                    setGraphic(null);
+                } else {
+                    button.setProperty(property);
+                    button.setSelected(property.equals(selectedProperty));
+                    setGraphic(button);
+                }
+            }
+        });
+    }
+
+    /**
+     * Show a new list of properties, with no property selected. The list is not copied.
+     * @param properties The properties to show, in order
+     */
+    public void setProperties(List<AirbnbListing> properties)
+    {
+        selectedProperty = null;
+        setItems(FXCollections.observableList(properties));
+        scrollTo(0);
+    }
+}
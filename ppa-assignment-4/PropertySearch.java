@@ -0,0 +1,191 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents the search of properties by name used by the "Search Engine Panel". A property matches when its
+ * lower-cased name contains the lower-cased searched expression. The indexes only narrow down the properties
+ * to check, so the results are exactly the properties a full scan would find, but the work depends on the
+ * number of matching properties rather than on the size of the data set.
+ * @author Tihomir Stefanov
+ */
+public class PropertySearch {
+
+    // All the loaded properties, sorted by price
+    private PriceIndex priceIndex;
+    // The words of the names of the properties, for expressions shorter than a trigram
+    private NameTokenIndex tokenIndex;
+    // The trigrams of the names of the properties
+    private NameTrigramIndex trigramIndex;
+    // The vocabulary of the names of the properties, to find the words close to a misspelt word
+    private BkTree vocabularyTree;
+
+    /**
+     * Build the search indexes of the properties.
+     * @param priceIndex all the loaded properties, sorted by price
+     */
+    public PropertySearch(PriceIndex priceIndex)
+    {
+        this.priceIndex = priceIndex;
+        tokenIndex = new NameTokenIndex(priceIndex);
+        trigramIndex = new NameTrigramIndex(priceIndex);
+        vocabularyTree = new BkTree(tokenIndex.getTerms());
+    }
+
+    /**
+     * Get the index of the words of the names of the properties.
+     * @return the index of the words of the names
+     */
+    public NameTokenIndex getTokenIndex()
+    {
+        return tokenIndex;
+    }
+
+    /**
+     * Find the properties of a price range (and optionally a borough) whose name contains the searched expression.
+     * @param searchWord the searched expression, lower-cased
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @param borough the borough of the properties, or null for all boroughs
+     * @return the matching properties, from the cheapest to the most expensive
+     */
+    public List<AirbnbListing> search(String searchWord, int fromPrice, int toPrice, String borough)
+    {
+        int fromRow = priceIndex.getFromRow(fromPrice);
+        int toRow = Math.max(fromRow, priceIndex.getToRow(toPrice));
+        List<AirbnbListing> results = new ArrayList<>();
+
+        int[] candidates = trigramIndex.candidates(searchWord, fromRow, toRow);
+        if (candidates == null) {
+            candidates = tokenIndex.candidates(searchWord, fromRow, toRow);
+        }
+        if (candidates == null) {
+            // Nothing to look up in the index (no letter or digit), check the whole price range
+            for (int row = fromRow; row < toRow; row++) {
+                addIfMatching(results, priceIndex.get(row), searchWord, borough);
+            }
+        } else {
+            for (int row : candidates) {
+                addIfMatching(results, priceIndex.get(row), searchWord, borough);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Find the properties of a price range (and optionally a borough) whose name does not contain the searched
+     * expression but has, for each word of the expression, a word within a small edit distance of it
+     * (1 for words of up to 4 characters, 2 for longer words). These approximate matches tolerate typos
+     * and are meant to be shown after the exact matches returned by search().
+     * @param searchWord the searched expression, lower-cased
+     * @param fromPrice the minimum price (included)
+     * @param toPrice the maximum price (included)
+     * @param borough the borough of the properties, or null for all boroughs
+     * @return the approximate matches, the closest first (then the most reviewed first)
+     */
+    public List<AirbnbListing> searchFuzzy(String searchWord, int fromPrice, int toPrice, String borough)
+    {
+        int fromRow = priceIndex.getFromRow(fromPrice);
+        int toRow = Math.max(fromRow, priceIndex.getToRow(toPrice));
+        List<String> tokens = NameTokenIndex.tokenize(searchWord);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Each candidate as (position << 32 | total distance of its closest words), sorted by position
+        long[] candidates = null;
+        for (String token : tokens) {
+            long[] rows = closeRows(token, fromRow, toRow);
+            candidates = candidates == null ? rows : intersect(candidates, rows);
+        }
+
+        List<AirbnbListing> results = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+        for (long candidate : candidates) {
+            AirbnbListing property = priceIndex.get((int) (candidate >>> 32));
+            if ((borough == null || borough.equals(property.getNeighbourhood()))
+                    && !property.getName().toLowerCase().contains(searchWord)) {
+                results.add(property);
+                distances.add((int) (candidate & 0xFFFFFFFFL));
+            }
+        }
+        Integer[] order = new Integer[results.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> distances.get(i))
+                .thenComparingInt(i -> -results.get(i).getNumberOfReviews()));
+        List<AirbnbListing> sorted = new ArrayList<>(results.size());
+        for (int i : order) {
+            sorted.add(results.get(i));
+        }
+        return sorted;
+    }
+
+    /**
+     * Find the properties of a price range with a word close to the given word.
+     * @return the properties as (position << 32 | distance of their closest word), sorted by position
+     */
+    private long[] closeRows(String token, int fromRow, int toRow)
+    {
+        int maxDistance = token.length() <= 4 ? 1 : 2;
+        long[] rows = new long[16];
+        int size = 0;
+        for (int[] match : vocabularyTree.search(token, maxDistance)) {
+            int[] posting = tokenIndex.getPostings(match[0]);
+            int from = Arrays.binarySearch(posting, fromRow);
+            for (int i = from < 0 ? -from - 1 : from; i < posting.length && posting[i] < toRow; i++) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, size * 2);
+                }
+                rows[size++] = ((long) posting[i] << 32) | match[1];
+            }
+        }
+        // Sorting puts the closest word of each property first, keep only that one
+        Arrays.sort(rows, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || (rows[distinct - 1] >>> 32) != (rows[i] >>> 32)) {
+                rows[distinct++] = rows[i];
+            }
+        }
+        return Arrays.copyOf(rows, distinct);
+    }
+
+    /**
+     * Intersect two lists of (position << 32 | distance) sorted by position, adding up the distances.
+     */
+    private static long[] intersect(long[] first, long[] second)
+    {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            long firstRow = first[i] >>> 32;
+            long secondRow = second[j] >>> 32;
+            if (firstRow < secondRow) {
+                i++;
+            } else if (firstRow > secondRow) {
+                j++;
+            } else {
+                result[size++] = first[i] + (second[j] & 0xFFFFFFFFL);
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Add a property to the results if it is in the borough and its name contains the searched expression.
+     */
+    private void addIfMatching(List<AirbnbListing> results, AirbnbListing property, String searchWord, String borough)
+    {
+        if ((borough == null || borough.equals(property.getNeighbourhood()))
+                && property.getName().toLowerCase().contains(searchWord)) {
+            results.add(property);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PropertySearchTest {
+
+    // The properties searched by the tested PropertySearch
+    PriceIndex TestIndex = new PriceIndex(SyntheticListings.create(20000, 3));
+    // Instance of the tested PropertySearch class
+    PropertySearch TestSearch = new PropertySearch(TestIndex);
+
+    // Expressions searched in the tests (whole words, parts of words, several words and no word at all)
+    String[] searchWords = {"pool", "swimmingpool", "ool", "o", "cosy flat", "sy fla", "garden view", "london  view",
+            "nothing", "-", " ", "7", "po", "ol", "zq"};
+
+    /**
+     * Test that the search() method finds exactly the properties found by a scan of the price range.
+     */
+    @Test
+    public void searchEqualsScan() {
+        int[][] priceRanges = {{0, 10000}, {50, 100}, {100, 100}, {300, 200}};
+        for (String searchWord : searchWords) {
+            for (int[] range : priceRanges) {
+                for (String borough : new String[] {null, "Camden"}) {
+                    List<AirbnbListing> expected = TestIndex.getRange(range[0], range[1]).stream()
+                            .filter(p -> p.getName().toLowerCase().contains(searchWord))
+                            .filter(p -> borough == null || p.getNeighbourhood().equals(borough))
+                            .collect(Collectors.toList());
+                    assertEquals(searchWord, expected, TestSearch.search(searchWord, range[0], range[1], borough));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the search() method keeps the "contains" semantics across case, punctuation and word boundaries.
+     */
+    @Test
+    public void searchKeepsContainsSemantics() {
+        PriceIndex index = new PriceIndex(Arrays.asList(
+                listing("1", "Cosy Flat, near the Pool!", 50),
+                listing("2", "SWIMMINGPOOL house", 60),
+                listing("3", "Poolside loft", 70),
+                listing("4", "Room in Camden", 80)));
+        PropertySearch search = new PropertySearch(index);
+
+        assertEquals(3, search.search("pool", 0, 100, null).size());
+        assertEquals(1, search.search("flat, near", 0, 100, null).size());
+        assertEquals(1, search.search("t, n", 0, 100, null).size());
+        assertEquals(1, search.search("!", 0, 100, null).size());
+        assertEquals(1, search.search("ol h", 0, 100, null).size());
+        assertEquals(1, search.search("pool house", 0, 100, null).size());
+        assertEquals(0, search.search("loft pool", 0, 100, null).size());
+        assertEquals(1, search.search("pool", 55, 65, null).size());
+    }
+
+    /**
+     * Test that the searchFuzzy() method finds the names with a word close to each searched word,
+     * closest first, but not the names the exact search already finds.
+     */
+    @Test
+    public void searchFuzzy() {
+        PriceIndex index = new PriceIndex(Arrays.asList(
+                listing("1", "Sunny garden flat", 50),
+                listing("2", "Sun house", 60),
+                listing("3", "Gardens and sunshine", 70),
+                listing("4", "Room in Soho", 80)));
+        PropertySearch search = new PropertySearch(index);
+
+        List<AirbnbListing> results = search.searchFuzzy("gardn", 0, 100, null);
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(0).getId());
+        assertEquals("3", results.get(1).getId());
+
+        assertEquals(0, search.searchFuzzy("garden", 0, 100, null).size());
+        assertEquals(1, search.searchFuzzy("sunny gardn", 0, 100, null).size());
+        assertEquals(1, search.searchFuzzy("gardn", 0, 60, null).size());
+        assertEquals(0, search.searchFuzzy("xylophone", 0, 100, null).size());
+    }
+
+    /**
+     * Create a property with the given id, name and price.
+     */
+    private AirbnbListing listing(String id, String name, int price) {
+        return new ListingRecord(id, name, "1", "Host", "Camden", 51.5, -0.1, "Private room", price, 1, 0, "", -1, 1, 0);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Represents a histogram of non-negative values with buckets of bounded relative width, to estimate quantiles
+ * (median, 90th percentile...) without sorting the values. Values below 2 x SUB_BUCKET_COUNT have a bucket each,
+ * and every larger power of two is split into SUB_BUCKET_COUNT buckets of equal width, so a quantile is estimated
+ * within 1/SUB_BUCKET_COUNT of its value (as in HDR histograms). Histograms of the same range of values can be
+ * merged by adding their bucket counts.
+ * @author Tihomir Stefanov
+ */
+public class QuantileHistogram {
+
+    // The number of bits of a value kept in its bucket, after its highest bit
+    private static final int SUB_BUCKET_BITS = 5;
+    // The number of buckets of a power of two
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // The number of values of each bucket
+    private long[] counts;
+    // The number of values
+    private long totalCount;
+
+    /**
+     * Create an empty histogram.
+     * @param maxValue the largest value that can be added
+     */
+    public QuantileHistogram(long maxValue)
+    {
+        counts = new long[bucketCount(maxValue)];
+    }
+
+    /**
+     * Get the number of buckets of the histograms of values up to a maximum value.
+     * @param maxValue the largest value
+     * @return the number of buckets
+     */
+    public static int bucketCount(long maxValue)
+    {
+        return bucketOf(maxValue) + 1;
+    }
+
+    /**
+     * Get the bucket of a value.
+     * @param value a value (negative values are counted as 0)
+     * @return the bucket of the value
+     */
+    public static int bucketOf(long value)
+    {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) Math.max(value, 0);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * Get the smallest value of a bucket.
+     * @param bucket a bucket
+     * @return the smallest value counted in the bucket
+     */
+    public static long lowestValueOf(int bucket)
+    {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        return (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+    }
+
+    /**
+     * Add a value to the histogram.
+     * @param value the value, not larger than the maximum value of the histogram
+     */
+    public void add(long value)
+    {
+        counts[bucketOf(value)]++;
+        totalCount++;
+    }
+
+    /**
+     * Add all the values of another histogram of the same maximum value.
+     * @param other the other histogram
+     */
+    public void add(QuantileHistogram other)
+    {
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Add the values counted by a run of cumulative counts (see PriceRangeQuantiles): the values counted in
+     * the counts but not in the subtracted counts.
+     * @param cumulativeCounts the number of values of each bucket up to the end of the run
+     * @param subtractedCounts the number of values of each bucket before the start of the run
+     */
+    public void addDifference(int[] cumulativeCounts, int[] subtractedCounts)
+    {
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            int count = cumulativeCounts[bucket] - subtractedCounts[bucket];
+            counts[bucket] += count;
+            totalCount += count;
+        }
+    }
+
+    /**
+     * Get the number of values of the histogram.
+     * @return the number of values
+     */
+    public long getCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * Estimate the value at a quantile: the middle of the bucket of the value with that rank.
+     * @param quantile the quantile, between 0 and 1 (0.5 for the median, 0.9 for the 90th percentile)
+     * @return the estimated value, or -1 if the histogram is empty
+     */
+    public long getValueAtQuantile(double quantile)
+    {
+        if (totalCount == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < counts.length - 1 && seen + counts[bucket] < rank) {
+            seen += counts[bucket];
+            bucket++;
+        }
+        long lowest = lowestValueOf(bucket);
+        return lowest + (lowestValueOf(bucket + 1) - lowest - 1) / 2;
+    }
+}
@@ -0,0 +1,50 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileHistogramTest {
+
+    /**
+     * Test that small values are counted exactly.
+     */
+    @Test
+    public void smallValuesExact() {
+        QuantileHistogram histogram = new QuantileHistogram(10000);
+        for (int value = 1; value <= 50; value++) {
+            histogram.add(value);
+        }
+        assertEquals(50, histogram.getCount());
+        assertEquals(25, histogram.getValueAtQuantile(0.5));
+        assertEquals(45, histogram.getValueAtQuantile(0.9));
+        assertEquals(1, histogram.getValueAtQuantile(0));
+        assertEquals(-1, new QuantileHistogram(10000).getValueAtQuantile(0.5));
+    }
+
+    /**
+     * Test that the quantiles are estimated within the relative width of a bucket, and that merging two
+     * histograms gives the histogram of all the values.
+     */
+    @Test
+    public void quantilesWithinBucketWidth() {
+        Random random = new Random(3);
+        long[] values = new long[100000];
+        QuantileHistogram first = new QuantileHistogram(10_000_000);
+        QuantileHistogram second = new QuantileHistogram(10_000_000);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 16);
+            (i % 2 == 0 ? first : second).add(values[i]);
+        }
+        first.add(second);
+        Arrays.sort(values);
+
+        assertEquals(values.length, first.getCount());
+        for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            long estimate = first.getValueAtQuantile(quantile);
+            assertTrue(exact + " ~ " + estimate, Math.abs(estimate - exact) <= exact / 32);
+        }
+    }
+}
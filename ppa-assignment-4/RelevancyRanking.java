@@ -0,0 +1,212 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents search results ranked by relevancy. Each result is scored once: first the properties whose name
+ * equals the searched expression, then those whose name starts with it, then those whose name contains it;
+ * within each group the earlier the expression appears in the name (in words) the better, then the more
+ * reviews the better. Only the first screen of results is ranked up front, with a bounded heap, the other
+ * results are only sorted if they are actually read.
+ * @author Tihomir Stefanov
+ */
+public class RelevancyRanking extends AbstractList<AirbnbListing> {
+
+    // The number of results ranked up front (more than a screen of results)
+    public static final int FIRST_SCREEN = 50;
+
+    // Scores of the groups of results
+    private static final int EQUALS = 2;
+    private static final int STARTS_WITH = 1;
+    private static final int CONTAINS = 0;
+
+    // The unranked results
+    private List<AirbnbListing> results;
+    // The group of each result
+    private int[] groups;
+    // The word of the name at which the expression first appears, for each result
+    private int[] wordPositions;
+    // The number of reviews of each result
+    private int[] reviews;
+    // The indexes of the results, in ranked order up to rankedCount
+    private int[] order;
+    // The number of results whose rank is known
+    private int rankedCount;
+
+    /**
+     * Rank search results.
+     * @param results the properties whose name contains the searched expression
+     * @param searchWord the lower-cased searched expression
+     */
+    public RelevancyRanking(List<AirbnbListing> results, String searchWord)
+    {
+        this.results = results;
+        int size = results.size();
+        groups = new int[size];
+        wordPositions = new int[size];
+        reviews = new int[size];
+        for (int i = 0; i < size; i++) {
+            AirbnbListing property = results.get(i);
+            String name = property.getName().toLowerCase();
+            int index = Math.max(0, name.indexOf(searchWord));
+            if (index == 0) {
+                groups[i] = name.length() == searchWord.length() ? EQUALS : STARTS_WITH;
+            } else {
+                groups[i] = CONTAINS;
+            }
+            wordPositions[i] = wordsBefore(name, index);
+            reviews[i] = property.getNumberOfReviews();
+        }
+        rankFirstScreen(Math.min(FIRST_SCREEN, size));
+    }
+
+    /**
+     * Get the result at the given rank.
+     * @param index the rank of the result (0 for the most relevant)
+     * @return the result at this rank
+     */
+    @Override
+    public AirbnbListing get(int index)
+    {
+        if (index >= rankedCount && index < results.size()) {
+            rankRemaining();
+        }
+        return results.get(order[index]);
+    }
+
+    /**
+     * Get the number of results.
+     * @return the number of results
+     */
+    @Override
+    public int size()
+    {
+        return results.size();
+    }
+
+    /**
+     * Find the best results with a heap holding the k best results seen so far (the worst of them at the top),
+     * then sort these k results.
+     * @param k the number of results to rank
+     */
+    private void rankFirstScreen(int k)
+    {
+        order = new int[results.size()];
+        int[] heap = new int[k];
+        int heapSize = 0;
+        int next = k;
+        for (int i = 0; i < results.size(); i++) {
+            if (heapSize < k) {
+                heap[heapSize++] = i;
+                siftUp(heap, heapSize - 1);
+            } else if (k > 0 && compare(i, heap[0]) < 0) {
+                order[next++] = heap[0];
+                heap[0] = i;
+                siftDown(heap, heapSize);
+            } else {
+                order[next++] = i;
+            }
+        }
+        Integer[] best = new Integer[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            best[i] = heap[i];
+        }
+        Arrays.sort(best, this::compare);
+        for (int i = 0; i < heapSize; i++) {
+            order[i] = best[i];
+        }
+        rankedCount = heapSize;
+    }
+
+    /**
+     * Sort the results that were not part of the first screen.
+     */
+    private void rankRemaining()
+    {
+        Integer[] remaining = new Integer[results.size() - rankedCount];
+        for (int i = 0; i < remaining.length; i++) {
+            remaining[i] = order[rankedCount + i];
+        }
+        Arrays.sort(remaining, this::compare);
+        for (int i = 0; i < remaining.length; i++) {
+            order[rankedCount + i] = remaining[i];
+        }
+        rankedCount = results.size();
+    }
+
+    /**
+     * Compare the relevancy of two results.
+     * @return a negative number if the first result is more relevant, a positive number if it is less relevant
+     */
+    private int compare(int first, int second)
+    {
+        if (groups[first] != groups[second]) {
+            return Integer.compare(groups[second], groups[first]);
+        }
+        if (wordPositions[first] != wordPositions[second]) {
+            return Integer.compare(wordPositions[first], wordPositions[second]);
+        }
+        if (reviews[first] != reviews[second]) {
+            return Integer.compare(reviews[second], reviews[first]);
+        }
+        return Integer.compare(first, second);
+    }
+
+    /**
+     * Move an element of the heap up until its parent is less relevant.
+     */
+    private void siftUp(int[] heap, int index)
+    {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (compare(heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    /**
+     * Move the top of the heap down until its children are more relevant.
+     */
+    private void siftDown(int[] heap, int size)
+    {
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compare(heap[index], heap[child]) >= 0) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j)
+    {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Count the words of a text that start before the given index.
+     */
+    private static int wordsBefore(String text, int index)
+    {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < index; i++) {
+            boolean wordCharacter = Character.isLetterOrDigit(text.charAt(i));
+            if (wordCharacter && !inWord) {
+                words++;
+            }
+            inWord = wordCharacter;
+        }
+        return words;
+    }
+}
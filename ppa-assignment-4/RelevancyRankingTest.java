@@ -0,0 +1,60 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RelevancyRankingTest {
+
+    /**
+     * Test the order of the groups: equal names, then names starting with the expression, then the others.
+     */
+    @Test
+    public void rankByGroup() {
+        List<AirbnbListing> results = new ArrayList<>();
+        results.add(listing("1", "Big garden house", 3));
+        results.add(listing("2", "Garden flat", 1));
+        results.add(listing("3", "garden", 0));
+        results.add(listing("4", "Flat with a garden", 50));
+        results.add(listing("5", "Garden room", 9));
+
+        List<AirbnbListing> ranked = new RelevancyRanking(results, "garden");
+        assertEquals("3", ranked.get(0).getId());
+        assertEquals("5", ranked.get(1).getId());
+        assertEquals("2", ranked.get(2).getId());
+        assertEquals("1", ranked.get(3).getId());
+        assertEquals("4", ranked.get(4).getId());
+    }
+
+    /**
+     * Test that results beyond the first screen are ranked like the first screen.
+     */
+    @Test
+    public void rankBeyondFirstScreen() {
+        List<AirbnbListing> results = new ArrayList<>();
+        for (int i = 0; i < 3 * RelevancyRanking.FIRST_SCREEN; i++) {
+            results.add(listing(String.valueOf(i), i % 2 == 0 ? "Pool house" : "House with pool", i));
+        }
+
+        List<AirbnbListing> ranked = new RelevancyRanking(results, "pool");
+        assertEquals(results.size(), ranked.size());
+        for (int i = 1; i < ranked.size(); i++) {
+            AirbnbListing previous = ranked.get(i - 1);
+            AirbnbListing current = ranked.get(i);
+            boolean previousStarts = previous.getName().startsWith("Pool");
+            boolean currentStarts = current.getName().startsWith("Pool");
+            assertTrue(previousStarts || !currentStarts);
+            if (previousStarts == currentStarts) {
+                assertTrue(previous.getNumberOfReviews() > current.getNumberOfReviews());
+            }
+        }
+    }
+
+    /**
+     * Create a property with the given id, name and number of reviews.
+     */
+    private AirbnbListing listing(String id, String name, int reviews) {
+        return new ListingRecord(id, name, "1", "Host", "Camden", 51.5, -0.1, "Private room", 50, 1, reviews, "", -1, 1, 0);
+    }
+}
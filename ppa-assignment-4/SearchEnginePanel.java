@@ -1,20 +1,23 @@
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 
-import java.io.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class represents the additional "Search Engine Panel", as a SplitPane.
@@ -28,6 +31,8 @@ public class SearchEnginePanel extends SplitPane {
     private BorderPane resultsPanel;
     //A scrollbar for the search engine panel for each neighbourhood
     private ScrollPane propertyScroll;
+    //List of the search results, only the visible results have a button
+    private PropertyListView resultsList;
     //Text field for user to search properties
     private TextField searchField;
     //DropDown List of boroughs
@@ -44,6 +49,24 @@ public class SearchEnginePanel extends SplitPane {
     private Label noSearchResults;
     //The method to sort the search results, sorted by Relevancy by default
     private String sortMethod = "Relevancy (search similarity)";
+    //Whether the search also shows the properties whose name is close to the search expression (typos)
+    private CheckBox typoTolerant;
+    //Menu of the suggestions shown under the search field while typing
+    private ContextMenu suggestionsMenu;
+    //Delay after the last keystroke before looking up suggestions, so fast typing only triggers one lookup
+    private PauseTransition suggestionDelay;
+    //The suggestion lookup in progress, if any
+    private Task<List<String>> suggestionTask;
+    //The search in progress, if any, only its results are shown
+    private Task<List<AirbnbListing>> searchTask;
+    //Indicator shown next to the number of results while a search is in progress
+    private ProgressIndicator busyIndicator;
+    //Background thread on which the searches and suggestion lookups run, away from the JavaFX thread
+    private ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search");
+        thread.setDaemon(true);
+        return thread;
+    });
 
 
     public SearchEnginePanel(View view, MapInfo mapInfo) {
@@ -72,6 +95,8 @@ public class SearchEnginePanel extends SplitPane {
         //Top BorderPane holds a Label showing the number of properties in the search results
         resultsSize = new Label();
         resultsSize.setPadding(new Insets(0, 20, 0, 20));
+        busyIndicator = new ProgressIndicator();
+        busyIndicator.setPrefSize(20, 20);
         BorderPane.setAlignment(resultsSize, Pos.CENTER_LEFT);
         topSearchPane.setRight(resultsSize);
 
@@ -99,6 +124,9 @@ public class SearchEnginePanel extends SplitPane {
         propertyScroll = new ScrollPane();
         propertyScroll.getStyleClass().add("results-scroll-pane");
         propertyScroll.setPrefWidth(mapInfo.getPrefWidth() + 40);
+        propertyScroll.setFitToWidth(true);
+        propertyScroll.setFitToHeight(true);
+        resultsList = new PropertyListView(mapInfo, this::searchPropertyToggled);
         resultsPanel = new BorderPane();
         resultsPanel.setId("results-panel");
         resultsPanel.setLeft(propertyScroll);
@@ -118,9 +146,21 @@ public class SearchEnginePanel extends SplitPane {
         searchField.setPromptText("Property name");
         searchField.setPrefWidth(300);
         searchField.setOnKeyPressed(this::searchKeyPressed);
+        suggestionsMenu = new ContextMenu();
+        suggestionDelay = new PauseTransition(Duration.millis(150));
+        suggestionDelay.setOnFinished(event -> lookUpSuggestions());
+        searchField.textProperty().addListener((observable, oldText, newText) -> {
+            cancelSearch();
+            suggestionDelay.playFromStart();
+        });
         Button searchButton = new Button("SEARCH");
-        searchButton.setOnAction(event -> search(true));
-        searchBar.getChildren().addAll(boroughsComboBox, searchField, searchButton);
+        searchButton.setOnAction(event -> {
+            hideSuggestions();
+            search(true);
+        });
+        typoTolerant = new CheckBox("Typo tolerant");
+        typoTolerant.setOnAction(event -> sort(sortMethod));
+        searchBar.getChildren().addAll(boroughsComboBox, searchField, searchButton, typoTolerant);
 
         clearOldSearch();
     }
@@ -165,10 +205,78 @@ public class SearchEnginePanel extends SplitPane {
      */
     private void searchKeyPressed(KeyEvent event) {
         if (event.getCode().equals(KeyCode.ENTER)) {
+            hideSuggestions();
             search(true);
         }
     }
 
+    /**
+     * Look up, on the background thread, the suggestions for the text typed in the Search Text Field.
+     * A lookup still waiting for the background thread is cancelled, as its suggestions would be outdated.
+     */
+    private void lookUpSuggestions() {
+        String text = searchField.getText();
+        if (suggestionTask != null) {
+            suggestionTask.cancel();
+        }
+        if (text.trim().equals("")) {
+            hideSuggestions();
+            return;
+        }
+        Task<List<String>> task = new Task<List<String>>() {
+            @Override
+            protected List<String> call() {
+                // The first lookup builds the suggestions, off the JavaFX Application Thread
+                return view.getSuggestionTrie().suggest(text);
+            }
+        };
+        task.setOnSucceeded(event -> showSuggestions(text, task.getValue()));
+        suggestionTask = task;
+        searchExecutor.execute(task);
+    }
+
+    /**
+     * Show the suggestions under the Search Text Field, if the text they were looked up for is still the typed text.
+     * Choosing a suggestion searches for it.
+     * @param text The text the suggestions were looked up for
+     * @param suggestions The suggestions, the best first
+     */
+    private void showSuggestions(String text, List<String> suggestions) {
+        if (!text.equals(searchField.getText()) || !searchField.isFocused()) {
+            return;
+        }
+        if (suggestions.isEmpty() || suggestions.equals(List.of(text.trim().toLowerCase()))) {
+            hideSuggestions();
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>();
+        for (String suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion);
+            item.setOnAction(event -> {
+                searchField.setText(suggestion);
+                searchField.positionCaret(suggestion.length());
+                hideSuggestions();
+                search(true);
+            });
+            items.add(item);
+        }
+        suggestionsMenu.getItems().setAll(items);
+        if (!suggestionsMenu.isShowing()) {
+            suggestionsMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Hide the suggestions, including the ones of a lookup still waiting to be shown.
+     */
+    private void hideSuggestions() {
+        suggestionDelay.stop();
+        if (suggestionTask != null) {
+            suggestionTask.cancel();
+        }
+        suggestionsMenu.hide();
+    }
+
     /**
      * Clear the right side of the screen to not display details of any property
      */
@@ -217,81 +325,151 @@ public class SearchEnginePanel extends SplitPane {
      * @param storeExpression Whether the expression should be stored in the search-words.txt file
      */
     private void search(boolean storeExpression) {
+        cancelSearch();
         clearOldSearch();
         if (! (searchField.getCharacters().toString().trim().equals("") || view.invalidPriceRange())) {
+            long startTime = System.nanoTime();
             // Search for properties within the selected price range and corresponding with the search prefix
             String searchWord = searchField.getCharacters().toString().trim().toLowerCase();
 
-            // Collection of all properties in the current selected price range
-            ArrayList<AirbnbListing> properties = view.getProperties();
-
-            List<AirbnbListing> searchResults =  properties.stream().filter(p -> p.getName().toLowerCase().contains(searchWord)).collect(Collectors.toList());
-
-            // Sort the search results according the method selected by the user
-            switch (sortMethod) {
-                case "Relevancy (search similarity)":
-                    searchResults = sortByRelevancy(properties, searchWord);
-                    break;
-                case "Number of Reviews":
-                    sortByReviews(searchResults);
-                    break;
-                case "Price(Low - High)":
-                    sortByPriceLowToHigh(searchResults);
-                    break;
-                case "Price(High - Low)":
-                    sortByPriceHighToLow(searchResults);
-                    break;
-                case "Host Name(A - Z)":
-                    sortByHostName(searchResults);
-                    break;
-            }
-
-            // If a specific borough is selected
+            // Only keep the properties of the selected borough, if a specific borough is selected
+            String borough = null;
             if (selectedBorough != null && (! selectedBorough.equals("ALL BOROUGHS"))) {
-                searchResults = searchResults.stream().filter(p -> p.getNeighbourhood().equals(selectedBorough)).collect(Collectors.toList());
+                borough = selectedBorough;
             }
 
-            // Show an Alert Dialog if the search finds no corresponding properties
-            if (searchResults.isEmpty()) {
-                showEmptyResultsAlert();
-            } else {
-                int size = searchResults.size();
-                String suffix = " properties found";
-                if (size == 1) {
-                    suffix = " property found";
-                }
-                resultsSize.setText(size + suffix);
-            }
-
-            showSearchResults(searchResults);
-
             // Only store the expression within the list of searched expressions if the search is initiated
             // by the user (not by an update from a price range or borough change)
             if (storeExpression) {
-                appendSearchWordToFile(searchWord);
+                view.logSearch(searchWord);
             }
 
+            // The search runs on the background thread, with a copy of the search options taken on the JavaFX thread
+            String searchBorough = borough;
+            int fromPrice = view.getFromPrice();
+            int toPrice = view.getToPrice();
+            String sortingMethod = sortMethod;
+            boolean fuzzy = typoTolerant.isSelected();
+            Task<List<AirbnbListing>> task = new Task<List<AirbnbListing>>() {
+                @Override
+                protected List<AirbnbListing> call() {
+                    return findResults(this, searchWord, fromPrice, toPrice, searchBorough, sortingMethod, fuzzy);
+                }
+            };
+            task.setOnSucceeded(event -> {
+                if (task == searchTask) {
+                    showResults(task.getValue(), System.nanoTime() - startTime);
+                }
+            });
+            task.setOnFailed(event -> {
+                if (task == searchTask) {
+                    resultsSize.setGraphic(null);
+                    showSearchFailedAlert();
+                }
+            });
+            searchTask = task;
+            resultsSize.setGraphic(busyIndicator);
+            searchExecutor.execute(task);
+
         } else if (searchField.getCharacters().toString().trim().equals("")) {
             showEmptyFieldAlert();
         }
     }
 
+    /**
+     * Cancel the search in progress, if any. Its results will not be shown.
+     */
+    private void cancelSearch() {
+        if (searchTask != null) {
+            searchTask.cancel();
+            searchTask = null;
+            resultsSize.setGraphic(null);
+        }
+    }
+
+    /**
+     * Find and sort the search results. This runs on the background thread and stops early, returning null,
+     * if the search is cancelled.
+     * @param task The task running the search
+     * @param searchWord The lower-cased expression searched by the user
+     * @param fromPrice The minimum price of the selected price range
+     * @param toPrice The maximum price of the selected price range
+     * @param borough The selected borough, or null for all boroughs
+     * @param sortingMethod The method to sort the search results
+     * @param fuzzy Whether the properties whose name is only close to the expression are also found
+     * @return The sorted search results, or null if the search is cancelled
+     */
+    private List<AirbnbListing> findResults(Task<?> task, String searchWord, int fromPrice, int toPrice, String borough,
+                                            String sortingMethod, boolean fuzzy) {
+        // Properties in the current selected price range whose name contains the search expression
+        List<AirbnbListing> searchResults = view.getPropertySearch().search(searchWord, fromPrice, toPrice, borough);
+        if (task.isCancelled()) {
+            return null;
+        }
+
+        // Sort the search results according the method selected by the user
+        switch (sortingMethod) {
+            case "Relevancy (search similarity)":
+                searchResults = sortByRelevancy(searchResults, searchWord);
+                break;
+            case "Number of Reviews":
+                sortByReviews(searchResults);
+                break;
+            case "Price(Low - High)":
+                sortByPriceLowToHigh(searchResults);
+                break;
+            case "Price(High - Low)":
+                sortByPriceHighToLow(searchResults);
+                break;
+            case "Host Name(A - Z)":
+                sortByHostName(searchResults);
+                break;
+        }
+
+        // Show the properties whose name is only close to the search expression after the exact matches
+        if (fuzzy && !task.isCancelled()) {
+            // A view rather than a copy, so that only the shown exact matches are ranked
+            searchResults = new ConcatenatedList(searchResults,
+                    view.getPropertySearch().searchFuzzy(searchWord, fromPrice, toPrice, borough));
+        }
+        return searchResults;
+    }
+
+    /**
+     * Show the results of the latest search, with the time it took.
+     * @param searchResults The sorted search results
+     * @param latency The time between the start of the search and the results, in nanoseconds
+     */
+    private void showResults(List<AirbnbListing> searchResults, long latency) {
+        searchTask = null;
+        resultsSize.setGraphic(null);
+
+        // Show an Alert Dialog if the search finds no corresponding properties
+        if (searchResults.isEmpty()) {
+            showEmptyResultsAlert();
+        } else {
+            int size = searchResults.size();
+            String suffix = " properties found";
+            if (size == 1) {
+                suffix = " property found";
+            }
+            resultsSize.setText(size + suffix + " in " + latency / 1_000_000 + " ms");
+        }
+
+        showSearchResults(searchResults);
+    }
+
     /**
      * Sort the search results by relevancy (first the properties with the same name, then the properties whose name
-     * starts with the expression and then finally those whose name contains the expression).
-     * @param properties The list of all properties within the specified price range
+     * starts with the expression and then finally those whose name contains the expression; the earlier the
+     * expression appears in the name and the more reviews, the more relevant). Each result is scored once and
+     * only the first screen of results is ranked straight away.
+     * @param properties The properties whose name contains the expression searched by the user
      * @param searchWord The expression searched by the user
      * @return The list of search results sorted by relevancy
      */
-    private List<AirbnbListing> sortByRelevancy(ArrayList<AirbnbListing> properties, String searchWord) {
-        // Properties whose name EQUALS the searched expression (order of pertinance)
-        List<AirbnbListing> searchResults =  properties.stream().filter(p -> p.getName().toLowerCase().equals(searchWord)).collect(Collectors.toList());
-        // Properties whose name STARTSWITH the searched expression
-        properties.stream().filter(p -> p.getName().toLowerCase().startsWith(searchWord) && !(p.getName().toLowerCase().equals(searchWord))).forEach(searchResults::add);
-        // Properties whose name CONTAINS the searched expression
-        properties.stream().filter(p -> p.getName().toLowerCase().contains(searchWord) && !(p.getName().toLowerCase().startsWith(searchWord))).forEach(searchResults::add);
-
-        return searchResults;
+    private List<AirbnbListing> sortByRelevancy(List<AirbnbListing> properties, String searchWord) {
+        return new RelevancyRanking(properties, searchWord);
     }
 
     /**
@@ -342,18 +520,6 @@ public class SearchEnginePanel extends SplitPane {
         });
     }
 
-    /**
-     * Add the search word to the "search-words.txt" file.
-     * @param searchWord The searched expression to append to the file
-     */
-    private void appendSearchWordToFile(String searchWord) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("search-words.txt", true))) {
-            writer.write(searchWord.trim().toLowerCase() + "\n");
-        } catch(IOException e) {
-            System.out.println(e);
-        }
-    }
-
     /**
      * Show the search results.
      * @param searchResults The search results to display to the user
@@ -365,30 +531,17 @@ public class SearchEnginePanel extends SplitPane {
             return;
         }
 
-        VBox vBox = new VBox();
-
-        vBox.setAlignment(Pos.TOP_CENTER);
-        ToggleGroup propertiesToggleGroup = new ToggleGroup();
-        ArrayList<ToggleButton> searchedResultsButtons = new ArrayList<>();
-
-        // Create buttons to display the search results
-        for (AirbnbListing property: searchResults) {
-            ToggleButton propertyInfo = new PropertyButton(property, mapInfo, propertiesToggleGroup);
-            propertyInfo.setOnAction(p -> searchPropertyToggled(propertyInfo, property));
-            searchedResultsButtons.add(propertyInfo);
-        }
-        vBox.getChildren().addAll(searchedResultsButtons);
-        propertyScroll.setContent(vBox);
+        resultsList.setProperties(searchResults);
+        propertyScroll.setContent(resultsList);
     }
 
     /**
-     * Toggle the information about the pressed property
-     * @param button the property that button was toggeled
-     * @param property the property linked to the button
+     * Toggle the information about the property selected in the search results
+     * @param property the selected property, or null if the property was deselected
      */
-    private void searchPropertyToggled(ToggleButton button, AirbnbListing property)
+    private void searchPropertyToggled(AirbnbListing property)
     {
-        if(button.isSelected()){
+        if(property != null){
             showDetails(property);
         }
         else{
@@ -404,7 +557,7 @@ public class SearchEnginePanel extends SplitPane {
      */
     private void showDetails(AirbnbListing property)
     {
-        Label propertyDescription = new Label(mapInfo.showPropertyDescription(property.getId()));
+        Label propertyDescription = new Label(mapInfo.showPropertyDescription(property));
         propertyDescription.getStyleClass().add("property-description");
         resultsPanel.setCenter(propertyDescription);
 
@@ -423,6 +576,18 @@ public class SearchEnginePanel extends SplitPane {
         emptyResultsAlert.showAndWait();
     }
 
+    /**
+     * Show an Alert Dialog to state that the Search could not be completed.
+     */
+    private void showSearchFailedAlert() {
+        // Show an Alert Dialog
+        Alert searchFailedAlert = new Alert(Alert.AlertType.ERROR);
+        searchFailedAlert.setTitle("Search Failed");
+        searchFailedAlert.setHeaderText("The Search could not be completed.");
+        searchFailedAlert.setContentText("Something went wrong while searching the properties, please try again.");
+        searchFailedAlert.show();
+    }
+
     /**
      * Show an Alert Dialog to state that the Search Field is empty (not specified by user).
      */
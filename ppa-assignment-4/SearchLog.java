@@ -0,0 +1,304 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Represents the log of the searched expressions ("search-words.txt"). Logging a search only queues it:
+ * a background thread writes all the queued searches at once, then flushes them to the disk, so a crash loses
+ * at most the batch being written. Each line is the time of the search (in milliseconds since 1970), a tab and
+ * the expression; lines written by older versions only hold the expression. When the log reaches its maximum
+ * size it is renamed "search-words.txt.1" (the older logs becoming .2, .3, ...) and a new log is started.
+ * @author Tihomir Stefanov
+ */
+public class SearchLog {
+
+    // The maximum number of searches written at once
+    private static final int MAX_BATCH = 256;
+    // Queued to stop the writer thread
+    private static final String END = "";
+
+    // The current log file
+    private File file;
+    // The size from which the log is rotated, in bytes
+    private long maxBytes;
+    // The number of older logs kept
+    private int maxBackups;
+    // The searches waiting to be written, as lines of the log
+    private BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    // The thread writing the queued searches
+    private Thread writerThread;
+    // The stream to the current log file, only used by the writer thread
+    private FileOutputStream stream;
+    // The writer of the current log file, only used by the writer thread
+    private BufferedWriter writer;
+
+    /**
+     * Start the log of the searched expressions.
+     * @param file the log file
+     * @param maxBytes the size from which the log is rotated, in bytes
+     * @param maxBackups the number of older logs kept
+     */
+    public SearchLog(File file, long maxBytes, int maxBackups)
+    {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        writerThread = new Thread(this::writeQueuedSearches, "search-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Log a searched expression, now. This does not wait for the expression to be written.
+     * @param expression the searched expression
+     */
+    public void log(String expression)
+    {
+        log(expression, System.currentTimeMillis());
+    }
+
+    /**
+     * Log a searched expression. This does not wait for the expression to be written.
+     * @param expression the searched expression
+     * @param time the time of the search, in milliseconds since 1970
+     */
+    public void log(String expression, long time)
+    {
+        String cleanExpression = clean(expression);
+        if (!cleanExpression.isEmpty()) {
+            queue.add(time + "\t" + cleanExpression);
+        }
+    }
+
+    /**
+     * Clean a searched expression the way it is logged: trimmed, lower-cased and on a single line.
+     * @param expression the searched expression
+     * @return the clean expression
+     */
+    public static String clean(String expression)
+    {
+        return expression.trim().toLowerCase().replaceAll("[\\t\\r\\n]+", " ");
+    }
+
+    /**
+     * Write all the queued searches and stop the writer thread. Searches logged afterwards are ignored.
+     */
+    public void close()
+    {
+        queue.add(END);
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the searched expressions of the log and of the older logs, from the oldest to the latest.
+     * The searches still queued are not included.
+     * @return the searched expressions, one element per search
+     */
+    public List<String> readExpressions()
+    {
+        List<String> expressions = new ArrayList<>();
+        for (String line : readLines()) {
+            expressions.add(expressionOf(line));
+        }
+        return expressions;
+    }
+
+    /**
+     * Read the lines of the log and of the older logs, from the oldest to the latest.
+     * The searches still queued are not included.
+     * @return the lines of the logs, without the empty lines
+     */
+    public List<String> readLines()
+    {
+        return readLinesAfter(Long.MIN_VALUE);
+    }
+
+    /**
+     * Read the lines of the searches logged after a given time, from the oldest to the latest. As the logs are in
+     * time order, the older logs are only read as long as they may hold such searches. Lines without time are
+     * considered older than any time but Long.MIN_VALUE. The searches still queued are not included.
+     * @param time a time in milliseconds since 1970, or Long.MIN_VALUE for all the searches
+     * @return the lines of the searches logged after the time, without the empty lines
+     */
+    public List<String> readLinesAfter(long time)
+    {
+        List<List<String>> logs = new ArrayList<>();
+        for (int backup = 0; backup <= maxBackups; backup++) {
+            File logFile = backup == 0 ? file : backupFile(backup);
+            if (!logFile.exists()) {
+                continue;
+            }
+            List<String> lines = new ArrayList<>();
+            // Whether the log holds searches up to the time, in which case the older logs are not needed
+            boolean reachesTime = false;
+            try (BufferedReader reader = new BufferedReader(new FileReader(logFile, StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                while (line != null) {
+                    if (!line.trim().isEmpty()) {
+                        if (timeOf(line) > time) {
+                            lines.add(line);
+                        } else {
+                            reachesTime = true;
+                        }
+                    }
+                    line = reader.readLine();
+                }
+            } catch (IOException e) {
+                System.out.println(e);
+            }
+            logs.add(lines);
+            if (reachesTime) {
+                break;
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            result.addAll(logs.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get the searched expression of a line of the log.
+     * @param line a line of the log, with or without time
+     * @return the searched expression
+     */
+    public static String expressionOf(String line)
+    {
+        int tab = timeLength(line);
+        return tab < 0 ? line : line.substring(tab + 1);
+    }
+
+    /**
+     * Get the time of the search of a line of the log.
+     * @param line a line of the log, with or without time
+     * @return the time of the search in milliseconds since 1970, or -1 for a line without time
+     */
+    public static long timeOf(String line)
+    {
+        int tab = timeLength(line);
+        return tab < 0 ? -1 : Long.parseLong(line.substring(0, tab));
+    }
+
+    /**
+     * Find the length of the time at the start of a line of the log.
+     * @return the index of the tab following the time, or -1 for a line without time
+     */
+    private static int timeLength(String line)
+    {
+        int tab = line.indexOf('\t');
+        if (tab <= 0 || tab > 18) {
+            return -1;
+        }
+        for (int i = 0; i < tab; i++) {
+            if (!Character.isDigit(line.charAt(i))) {
+                return -1;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Body of the writer thread: wait for searches, then write all the queued searches as one batch.
+     */
+    private void writeQueuedSearches()
+    {
+        List<String> batch = new ArrayList<>();
+        boolean closed = false;
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            closed |= batch.remove(END);
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                System.out.println(e);
+                closeFile();
+            }
+            batch.clear();
+        }
+        closeFile();
+    }
+
+    /**
+     * Write a batch of searches and force them to the disk, rotating the log first if it is full.
+     */
+    private void writeBatch(List<String> batch) throws IOException
+    {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (file.length() >= maxBytes) {
+            rotate();
+        }
+        if (writer == null) {
+            stream = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+        for (String line : batch) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.flush();
+        stream.getFD().sync();
+    }
+
+    /**
+     * Rename the log and the older logs to start a new log, deleting the oldest log.
+     */
+    private void rotate()
+    {
+        closeFile();
+        if (maxBackups == 0) {
+            file.delete();
+            return;
+        }
+        backupFile(maxBackups).delete();
+        for (int backup = maxBackups - 1; backup >= 1; backup--) {
+            backupFile(backup).renameTo(backupFile(backup + 1));
+        }
+        file.renameTo(backupFile(1));
+    }
+
+    /**
+     * Close the current log file, if it is open.
+     */
+    private void closeFile()
+    {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println(e);
+            }
+            writer = null;
+            stream = null;
+        }
+    }
+
+    /**
+     * Get the file of an older log.
+     * @param backup the number of the older log, 1 for the latest
+     */
+    private File backupFile(int backup)
+    {
+        return new File(file.getPath() + "." + backup);
+    }
+}
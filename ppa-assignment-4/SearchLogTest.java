@@ -0,0 +1,63 @@
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SearchLogTest {
+
+    /**
+     * Test that the searches logged are written, with their time, once the log is closed.
+     */
+    @Test
+    public void logIsWrittenOnClose() throws IOException {
+        File file = new File(Files.createTempDirectory("search-log").toFile(), "search-words.txt");
+        SearchLog log = new SearchLog(file, 1_000_000, 2);
+        log.log("  Cosy Flat ", 1000);
+        log.log("pool\tside", 2000);
+        log.log("   ", 3000);
+        log.close();
+
+        assertEquals(Arrays.asList("1000\tcosy flat", "2000\tpool side"), Files.readAllLines(file.toPath()));
+        assertEquals(Arrays.asList("cosy flat", "pool side"), log.readExpressions());
+    }
+
+    /**
+     * Test that the log is rotated when it is full, and that the older logs are read first.
+     */
+    @Test
+    public void logIsRotated() throws IOException, InterruptedException {
+        File file = new File(Files.createTempDirectory("search-log").toFile(), "search-words.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("legacy\n\nsearch\n");
+        }
+        SearchLog log = new SearchLog(file, 10, 2);
+        log.log("first search", 1);
+        // Wait for the first batch to be written to a new log, so that the second one is written to another one
+        while (!new File(file.getPath() + ".1").exists() || file.length() == 0) {
+            Thread.sleep(10);
+        }
+        log.log("second", 2);
+        log.close();
+
+        assertEquals(Arrays.asList("2\tsecond"), Files.readAllLines(file.toPath()));
+        assertEquals(Arrays.asList("1\tfirst search"), Files.readAllLines(new File(file.getPath() + ".1").toPath()));
+        assertEquals(Arrays.asList("legacy", "search", "first search", "second"), log.readExpressions());
+    }
+
+    /**
+     * Test that the lines of the log with and without time are both understood.
+     */
+    @Test
+    public void readLines() {
+        assertEquals("cosy flat", SearchLog.expressionOf("1600000000000\tcosy flat"));
+        assertEquals(1600000000000L, SearchLog.timeOf("1600000000000\tcosy flat"));
+        assertEquals("cosy flat", SearchLog.expressionOf("cosy flat"));
+        assertEquals(-1, SearchLog.timeOf("cosy flat"));
+        assertEquals(-1, SearchLog.timeOf("flat 2\tb"));
+    }
+}
@@ -1,6 +1,8 @@
+import java.util.function.Supplier;
+
 /**
  * This class represents a single statistic.
- * It holds a statistic name and its value.
+ * It holds a statistic name and its value. The value can also be computed lazily, the first time it is shown.
  * @author Jessy Briard
  */
 
@@ -8,6 +10,8 @@ public class Statistic {
 
     private String name;
     private String value;
+    // Computes the value the first time it is read, or null if the value is already known
+    private Supplier<String> valueSupplier;
 
     public Statistic (String name) {
         this.name = name;
@@ -27,6 +31,11 @@ public class Statistic {
      * @return The statistic's value
      */
     public String getValue() {
+        if (valueSupplier != null) {
+            Supplier<String> supplier = valueSupplier;
+            valueSupplier = null;
+            setValue(supplier.get());
+        }
         return value;
     }
 
@@ -35,10 +44,19 @@ public class Statistic {
      * @param newValue The statistic's new value
      */
     public void setValue(String newValue) {
+        valueSupplier = null;
         if (newValue != null) {
             value = newValue;
         } else {
             value = "-";
         }
     }
+
+    /**
+     * Set the way to compute the statistic's new value. The value is only computed when it is read.
+     * @param newValueSupplier Computes the statistic's new value (null for no value)
+     */
+    public void setValueSupplier(Supplier<String> newValueSupplier) {
+        valueSupplier = newValueSupplier;
+    }
 }
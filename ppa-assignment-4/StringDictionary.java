@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the distinct values of a text field which repeats a lot (the borough, the room type, the host name,
+ * the date of the last review), each with a small code: its position in the order in which the values were first
+ * encoded. A column of codes then holds a single instance of each value, and two values are equal when their
+ * codes are equal.
+ * @author Tihomir Stefanov
+ */
+public class StringDictionary {
+
+    // The values, in the order of their codes
+    private List<String> values = new ArrayList<>();
+    // The code of each value
+    private Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Get the code of a value, adding the value to the dictionary if it is new.
+     * @param value the value to encode
+     * @return the code of the value
+     */
+    public int encode(String value)
+    {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Get the code of a value, without adding it.
+     * @param value the value to look for
+     * @return the code of the value, or -1 if the value is not in the dictionary
+     */
+    public int find(String value)
+    {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Get the value of a code.
+     * @param code the code of the value
+     * @return the value
+     */
+    public String get(int code)
+    {
+        return values.get(code);
+    }
+
+    /**
+     * Get the number of distinct values.
+     * @return the number of values
+     */
+    public int size()
+    {
+        return values.size();
+    }
+
+    /**
+     * Get the values, in the order of their codes.
+     * @return a new array of the values
+     */
+    public String[] toArray()
+    {
+        return values.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StringDictionaryTest {
+
+    // Instance of the tested StringDictionary class
+    StringDictionary TestDictionary = new StringDictionary();
+
+    /**
+     * Test that equal values get the same code, in order of first appearance.
+     */
+    @Test
+    public void encode() {
+        assertEquals(0, TestDictionary.encode("Camden"));
+        assertEquals(1, TestDictionary.encode("Enfield"));
+        assertEquals(0, TestDictionary.encode(new String("Camden")));
+        assertEquals(2, TestDictionary.encode(""));
+        assertEquals(3, TestDictionary.size());
+        assertEquals("Enfield", TestDictionary.get(1));
+        assertArrayEquals(new String[] {"Camden", "Enfield", ""}, TestDictionary.toArray());
+    }
+
+    /**
+     * Test of the find() method, which does not add values.
+     */
+    @Test
+    public void find() {
+        TestDictionary.encode("Private room");
+        assertEquals(0, TestDictionary.find("Private room"));
+        assertEquals(-1, TestDictionary.find("Shared room"));
+        assertEquals(1, TestDictionary.size());
+    }
+}
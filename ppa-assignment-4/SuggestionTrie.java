@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the suggestions shown while the user types a search expression: the words of the names of the
+ * properties, weighted by the number of names containing them, and the previously searched expressions,
+ * weighted by the number of times they were searched. The suggestions are stored in a prefix tree (trie) where
+ * every node keeps its best suggestions, so completing a prefix only walks down the characters of the prefix.
+ * @author Tihomir Stefanov
+ */
+public class SuggestionTrie {
+
+    // The maximum number of suggestions kept for a prefix
+    public static final int MAX_SUGGESTIONS = 8;
+    // The weight of one previous search of an expression, compared to one name containing a word
+    private static final int HISTORY_WEIGHT = 20;
+
+    // The suggestions, in alphabetical order
+    private String[] suggestions;
+    // The weight of each suggestion
+    private int[] weights;
+    // The character leading to each node of the tree (the first node is the root)
+    private char[] labels;
+    // The first child of each node, or -1
+    private int[] firstChild;
+    // The next child of the parent of each node, or -1
+    private int[] nextSibling;
+    // The best suggestions starting with the prefix of each node, the best first
+    private int[][] best;
+    // The number of nodes of the tree
+    private int nodeCount;
+
+    /**
+     * Build the suggestions from the words of the names of the properties and the previously searched expressions.
+     * Previous expressions with a word that no name contains (typically typos) are not suggested.
+     * @param tokenIndex the words of the names of the properties
+     * @param searchCounts the number of searches of the previously searched expressions
+     */
+    public SuggestionTrie(NameTokenIndex tokenIndex, Map<String, Long> searchCounts)
+    {
+        Map<String, Integer> weightsBySuggestion = new HashMap<>();
+        String[] terms = tokenIndex.getTerms();
+        for (int i = 0; i < terms.length; i++) {
+            weightsBySuggestion.put(terms[i], tokenIndex.getPostings(i).length);
+        }
+        for (Map.Entry<String, Long> entry : searchCounts.entrySet()) {
+            String suggestion = entry.getKey().trim().toLowerCase();
+            List<String> tokens = NameTokenIndex.tokenize(suggestion);
+            boolean known = !tokens.isEmpty();
+            for (int i = 0; i < tokens.size() && known; i++) {
+                known = Arrays.binarySearch(terms, tokens.get(i)) >= 0;
+            }
+            if (known) {
+                int weight = (int) Math.min(Integer.MAX_VALUE / 2, HISTORY_WEIGHT * entry.getValue());
+                weightsBySuggestion.merge(suggestion, weight, Integer::sum);
+            }
+        }
+
+        suggestions = weightsBySuggestion.keySet().toArray(new String[0]);
+        Arrays.sort(suggestions);
+        weights = new int[suggestions.length];
+        for (int i = 0; i < suggestions.length; i++) {
+            weights[i] = weightsBySuggestion.get(suggestions[i]);
+        }
+        buildTree();
+    }
+
+    /**
+     * Find the best suggestions for what the user has typed so far. If the text has several words, the last word
+     * is also completed on its own, after the suggestions completing the whole text.
+     * @param text the text typed by the user
+     * @return at most MAX_SUGGESTIONS suggestions, the best first
+     */
+    public List<String> suggest(String text)
+    {
+        String prefix = text.toLowerCase().replaceAll("^\\s+", "");
+        List<String> results = new ArrayList<>();
+        if (prefix.isEmpty()) {
+            return results;
+        }
+        addCompletions(results, "", prefix);
+
+        int lastWord = prefix.length();
+        while (lastWord > 0 && Character.isLetterOrDigit(prefix.charAt(lastWord - 1))) {
+            lastWord--;
+        }
+        if (lastWord > 0 && lastWord < prefix.length()) {
+            addCompletions(results, prefix.substring(0, lastWord), prefix.substring(lastWord));
+        }
+        return results;
+    }
+
+    /**
+     * Add the best suggestions starting with a prefix to the results, after the given head, until there are
+     * MAX_SUGGESTIONS results.
+     */
+    private void addCompletions(List<String> results, String head, String prefix)
+    {
+        int node = find(prefix);
+        if (node < 0) {
+            return;
+        }
+        for (int i = 0; i < best[node].length && results.size() < MAX_SUGGESTIONS; i++) {
+            String suggestion = head + suggestions[best[node][i]];
+            if (!results.contains(suggestion)) {
+                results.add(suggestion);
+            }
+        }
+    }
+
+    /**
+     * Find the node of a prefix.
+     * @return the node, or -1 if no suggestion starts with the prefix
+     */
+    private int find(String prefix)
+    {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            int child = firstChild[node];
+            while (child != -1 && labels[child] != prefix.charAt(i)) {
+                child = nextSibling[child];
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Insert all the suggestions in the tree, then keep the best suggestions of each node.
+     */
+    private void buildTree()
+    {
+        int capacity = 16;
+        labels = new char[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        int[] terminal = new int[capacity];
+        firstChild[0] = -1;
+        nextSibling[0] = -1;
+        terminal[0] = -1;
+        nodeCount = 1;
+
+        for (int s = 0; s < suggestions.length; s++) {
+            int node = 0;
+            for (int i = 0; i < suggestions[s].length(); i++) {
+                char c = suggestions[s].charAt(i);
+                int child = firstChild[node];
+                while (child != -1 && labels[child] != c) {
+                    child = nextSibling[child];
+                }
+                if (child == -1) {
+                    if (nodeCount == capacity) {
+                        capacity *= 2;
+                        labels = Arrays.copyOf(labels, capacity);
+                        firstChild = Arrays.copyOf(firstChild, capacity);
+                        nextSibling = Arrays.copyOf(nextSibling, capacity);
+                        terminal = Arrays.copyOf(terminal, capacity);
+                    }
+                    child = nodeCount++;
+                    labels[child] = c;
+                    firstChild[child] = -1;
+                    terminal[child] = -1;
+                    nextSibling[child] = firstChild[node];
+                    firstChild[node] = child;
+                }
+                node = child;
+            }
+            terminal[node] = s;
+        }
+
+        // A child is always created after its parent, so going backwards sees the children before their parent
+        best = new int[nodeCount][];
+        int[] candidates = new int[MAX_SUGGESTIONS * 64];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int size = 0;
+            if (terminal[node] >= 0) {
+                candidates[size++] = terminal[node];
+            }
+            for (int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+                if (size + best[child].length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, 2 * (size + best[child].length));
+                }
+                System.arraycopy(best[child], 0, candidates, size, best[child].length);
+                size += best[child].length;
+            }
+            best[node] = selectBest(candidates, size);
+        }
+    }
+
+    /**
+     * Select the MAX_SUGGESTIONS heaviest suggestions among candidates, the heaviest first
+     * (and in alphabetical order for equal weights).
+     */
+    private int[] selectBest(int[] candidates, int size)
+    {
+        int[] selected = new int[Math.min(size, MAX_SUGGESTIONS)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int suggestion = candidates[i];
+            // Insertion into the small sorted selection, dropping the lightest suggestion when it is full
+            int position = count;
+            while (position > 0 && isBetter(suggestion, selected[position - 1])) {
+                position--;
+            }
+            if (position < selected.length) {
+                int end = Math.min(count, selected.length - 1);
+                System.arraycopy(selected, position, selected, position + 1, end - position);
+                selected[position] = suggestion;
+                count = Math.min(count + 1, selected.length);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Check whether a suggestion should be shown before another one.
+     */
+    private boolean isBetter(int suggestion, int other)
+    {
+        return weights[suggestion] > weights[other] || (weights[suggestion] == weights[other] && suggestion < other);
+    }
+}
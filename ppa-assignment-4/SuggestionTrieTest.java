@@ -0,0 +1,57 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SuggestionTrieTest {
+
+    /**
+     * Test that the suggest() method completes a prefix with the words of the most names first.
+     */
+    @Test
+    public void suggestByFrequency() {
+        SuggestionTrie trie = new SuggestionTrie(tokenIndex("Cosy flat", "Cosy room", "Cottage", "Central flat"),
+                Collections.emptyMap());
+
+        assertEquals(Arrays.asList("cosy", "cottage"), trie.suggest("co"));
+        assertEquals(Arrays.asList("cosy", "central", "cottage"), trie.suggest("C"));
+        assertEquals(Arrays.asList("flat"), trie.suggest("  fl"));
+        assertTrue(trie.suggest("x").isEmpty());
+        assertTrue(trie.suggest("").isEmpty());
+    }
+
+    /**
+     * Test that the suggest() method favours the previously searched expressions, but not the ones with typos,
+     * and completes the last word of a text of several words.
+     */
+    @Test
+    public void suggestPreviousSearches() {
+        Map<String, Long> history = new HashMap<>();
+        history.put("cottage", 1L);
+        history.put("central flat", 2L);
+        history.put("cottagge", 5L);
+        SuggestionTrie trie = new SuggestionTrie(tokenIndex("Cosy flat", "Cosy room", "Cottage", "Central flat"),
+                history);
+
+        assertEquals(Arrays.asList("central flat", "cottage", "cosy", "central"), trie.suggest("c"));
+        assertEquals(Arrays.asList("cottage"), trie.suggest("cott"));
+        assertEquals(Arrays.asList("central flat"), trie.suggest("central f"));
+        assertEquals(Arrays.asList("cosy room"), trie.suggest("cosy r"));
+    }
+
+    /**
+     * Index the words of the given names.
+     */
+    private NameTokenIndex tokenIndex(String... names) {
+        AirbnbListing[] listings = new AirbnbListing[names.length];
+        for (int i = 0; i < names.length; i++) {
+            listings[i] = new ListingRecord(String.valueOf(i), names[i], "1", "Host", "Camden", 51.5, -0.1,
+                    "Private room", 50, 1, 0, "", -1, 1, 0);
+        }
+        return new NameTokenIndex(new PriceIndex(Arrays.asList(listings)));
+    }
+}
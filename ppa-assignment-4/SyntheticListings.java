@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates reproducible synthetic data sets of properties, for the tests and the benchmarks, as the AirBnB London
+ * data set is too large to be shared with the code.
+ * @author Tihomir Stefanov
+ */
+public class SyntheticListings {
+
+    // The London boroughs used for the synthetic properties
+    public static final String[] BOROUGHS = {"Westminster", "Camden", "Hackney", "Tower Hamlets", "Lambeth",
+            "Southwark", "Islington", "Kensington and Chelsea", "Enfield", "Bromley"};
+    // The room types used for the synthetic properties
+    private static final String[] ROOM_TYPES = {"Entire home/apt", "Private room", "Shared room"};
+    // The words used to build the names of the synthetic properties
+    private static final String[] WORDS = {"cosy", "double", "room", "flat", "house", "garden", "sunny", "studio",
+            "loft", "central", "london", "view", "swimmingpool", "pool", "bright", "modern", "victorian", "apartment"};
+
+    /**
+     * Create a reproducible synthetic data set.
+     * @param size the number of properties
+     * @param seed the seed of the random generator
+     * @return the synthetic properties, in id order
+     */
+    public static List<AirbnbListing> create(int size, long seed)
+    {
+        Random random = new Random(seed);
+        List<AirbnbListing> listings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 2 + random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    name.append(' ');
+                }
+                name.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            listings.add(new ListingRecord(String.valueOf(10_000 + 3L * i), name.toString(),
+                    String.valueOf(random.nextInt(size / 3 + 1)), "Host " + random.nextInt(500),
+                    BOROUGHS[random.nextInt(BOROUGHS.length)], 51.3 + random.nextDouble() * 0.4,
+                    -0.5 + random.nextDouble() * 0.7, ROOM_TYPES[random.nextInt(ROOM_TYPES.length)],
+                    10 + random.nextInt(random.nextInt(10) == 0 ? 2000 : 300), 1 + random.nextInt(14),
+                    random.nextInt(300), random.nextInt(5) == 0 ? "" : "2019-0" + (1 + random.nextInt(9)) + "-15",
+                    random.nextInt(5) == 0 ? -1 : random.nextInt(800) / 100.0, 1 + random.nextInt(20),
+                    random.nextInt(366)));
+        }
+        return listings;
+    }
+}
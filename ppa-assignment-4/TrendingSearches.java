@@ -0,0 +1,230 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the searches of a sliding time window (for example the last hour), to find the trending searched
+ * expression. The window is split into a ring of time buckets (for example 60 buckets of one minute): a search
+ * is counted in the bucket of its time, and when the ring comes back to a bucket that has left the window, its
+ * counts are removed from the window before it is reused. Each bucket counts a bounded number of expressions,
+ * so the memory is bounded. The counts of the window are kept in a binary max-heap, updated as searches are
+ * counted and buckets leave the window, so the trending expression is always at the top of the heap.
+ * @author Tihomir Stefanov
+ */
+public class TrendingSearches {
+
+    // The maximum number of expressions counted in a bucket, the other expressions of the bucket are ignored
+    private static final int MAX_EXPRESSIONS_PER_BUCKET = 100;
+
+    // The duration of a bucket, in milliseconds
+    private long bucketDuration;
+    // The number (time / bucketDuration) of the period counted by each bucket, or Long.MIN_VALUE if the bucket is empty
+    private long[] bucketPeriods;
+    // The counts of the expressions of each bucket
+    private Map<String, Integer>[] bucketCounts;
+    // The expression of each counter of the window (the counters in use are 0 to size - 1)
+    private String[] expressions = new String[16];
+    // The count of each counter in the whole window (the sum of the counts of the buckets)
+    private int[] counts = new int[16];
+    // The counter of each expression of the window
+    private Map<String, Integer> countersByExpression = new HashMap<>();
+    // The counters in a binary max-heap by count, the trending expression at the top
+    private int[] heap = new int[16];
+    // The position of each counter in the heap
+    private int[] heapPositions = new int[16];
+    // The number of expressions of the window
+    private int size;
+    // The latest period counted
+    private long latestPeriod = Long.MIN_VALUE;
+
+    /**
+     * Create an empty window of searches.
+     * @param bucketDuration the duration of a bucket, in milliseconds
+     * @param bucketCount the number of buckets of the window
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TrendingSearches(long bucketDuration, int bucketCount)
+    {
+        this.bucketDuration = bucketDuration;
+        bucketPeriods = new long[bucketCount];
+        bucketCounts = new Map[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            bucketPeriods[i] = Long.MIN_VALUE;
+            bucketCounts[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Count a search. Searches older than the window are ignored.
+     * @param expression the searched expression
+     * @param time the time of the search, in milliseconds since 1970
+     */
+    public synchronized void add(String expression, long time)
+    {
+        long period = Math.floorDiv(time, bucketDuration);
+        advanceTo(period);
+        if (period <= latestPeriod - bucketPeriods.length) {
+            return;
+        }
+        int bucket = bucketOf(period);
+        Map<String, Integer> counts = bucketCounts[bucket];
+        if (counts.size() < MAX_EXPRESSIONS_PER_BUCKET || counts.containsKey(expression)) {
+            counts.merge(expression, 1, Integer::sum);
+            addToWindow(expression, 1);
+        }
+    }
+
+    /**
+     * Get the expression searched the most in the window ending at the given time.
+     * @param time the end of the window, in milliseconds since 1970
+     * @return the trending expression, or null if there was no search in the window
+     */
+    public synchronized String getTrending(long time)
+    {
+        advanceTo(Math.floorDiv(time, bucketDuration));
+        return size == 0 ? null : expressions[heap[0]];
+    }
+
+    /**
+     * Get the number of searches of an expression in the window ending at the given time.
+     * @param expression a searched expression
+     * @param time the end of the window, in milliseconds since 1970
+     * @return the number of searches of the expression in the window
+     */
+    public synchronized int getCount(String expression, long time)
+    {
+        advanceTo(Math.floorDiv(time, bucketDuration));
+        Integer counter = countersByExpression.get(expression);
+        return counter == null ? 0 : counts[counter];
+    }
+
+    /**
+     * Move the window forward so that it ends with the given period, emptying the buckets that leave the window.
+     */
+    private void advanceTo(long period)
+    {
+        if (period <= latestPeriod) {
+            return;
+        }
+        // Past a full turn of the ring, every bucket leaves the window
+        long first = Math.max(latestPeriod + 1, period - bucketPeriods.length + 1);
+        for (long p = first; p <= period; p++) {
+            int bucket = bucketOf(p);
+            if (bucketPeriods[bucket] != Long.MIN_VALUE) {
+                for (Map.Entry<String, Integer> entry : bucketCounts[bucket].entrySet()) {
+                    addToWindow(entry.getKey(), -entry.getValue());
+                }
+                bucketCounts[bucket].clear();
+            }
+            bucketPeriods[bucket] = p;
+        }
+        latestPeriod = period;
+    }
+
+    /**
+     * Change the count of an expression in the window, removing the expression once its count is 0.
+     */
+    private void addToWindow(String expression, int change)
+    {
+        Integer counter = countersByExpression.get(expression);
+        if (counter == null) {
+            if (size == expressions.length) {
+                expressions = Arrays.copyOf(expressions, 2 * size);
+                counts = Arrays.copyOf(counts, 2 * size);
+                heap = Arrays.copyOf(heap, 2 * size);
+                heapPositions = Arrays.copyOf(heapPositions, 2 * size);
+            }
+            counter = size;
+            expressions[counter] = expression;
+            counts[counter] = 0;
+            heap[size] = counter;
+            heapPositions[counter] = size;
+            size++;
+            countersByExpression.put(expression, counter);
+        }
+        counts[counter] += change;
+        if (counts[counter] == 0) {
+            remove(counter);
+        } else if (change > 0) {
+            siftUp(heapPositions[counter]);
+        } else {
+            siftDown(heapPositions[counter]);
+        }
+    }
+
+    /**
+     * Remove a counter from the window. The last counter takes its number, so that the counters stay 0 to size - 1.
+     */
+    private void remove(int counter)
+    {
+        countersByExpression.remove(expressions[counter]);
+        int position = heapPositions[counter];
+        size--;
+        swap(position, size);
+        if (counter != size) {
+            expressions[counter] = expressions[size];
+            counts[counter] = counts[size];
+            heap[heapPositions[size]] = counter;
+            heapPositions[counter] = heapPositions[size];
+            countersByExpression.put(expressions[counter], counter);
+        }
+        expressions[size] = null;
+        if (position < size) {
+            siftUp(position);
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Move a counter of the heap down until its children have lower counts.
+     */
+    private void siftDown(int position)
+    {
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && counts[heap[child + 1]] > counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[position]] >= counts[heap[child]]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    /**
+     * Move a counter of the heap up until its parent has a higher count.
+     */
+    private void siftUp(int position)
+    {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] >= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Swap two counters of the heap.
+     */
+    private void swap(int first, int second)
+    {
+        int counter = heap[first];
+        heap[first] = heap[second];
+        heap[second] = counter;
+        heapPositions[heap[first]] = first;
+        heapPositions[heap[second]] = second;
+    }
+
+    /**
+     * Get the bucket of a period.
+     */
+    private int bucketOf(long period)
+    {
+        return (int) Math.floorMod(period, (long) bucketPeriods.length);
+    }
+}
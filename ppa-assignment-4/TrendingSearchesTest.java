@@ -0,0 +1,78 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TrendingSearchesTest {
+
+    // One minute, in milliseconds
+    private static final long MINUTE = 60_000;
+
+    /**
+     * Test that the trending expression only counts the searches of the window.
+     */
+    @Test
+    public void slidingWindow() {
+        TrendingSearches lastHour = new TrendingSearches(MINUTE, 60);
+        assertNull(lastHour.getTrending(0));
+        for (int i = 0; i < 3; i++) {
+            lastHour.add("pool", 10 * MINUTE + i);
+        }
+        lastHour.add("flat", 40 * MINUTE);
+        lastHour.add("flat", 50 * MINUTE);
+
+        assertEquals("pool", lastHour.getTrending(60 * MINUTE));
+        assertEquals(3, lastHour.getCount("pool", 69 * MINUTE));
+        assertEquals(0, lastHour.getCount("pool", 70 * MINUTE));
+        assertEquals("flat", lastHour.getTrending(70 * MINUTE));
+        assertEquals(1, lastHour.getCount("flat", 100 * MINUTE));
+        assertNull(lastHour.getTrending(200 * MINUTE));
+    }
+
+    /**
+     * Test that searches older than the window are ignored and that late searches of the window are counted.
+     */
+    @Test
+    public void oldSearches() {
+        TrendingSearches lastHour = new TrendingSearches(MINUTE, 60);
+        lastHour.add("garden", 500 * MINUTE);
+        lastHour.add("pool", 400 * MINUTE);
+        lastHour.add("flat", 470 * MINUTE);
+        lastHour.add("flat", 471 * MINUTE);
+
+        assertEquals(0, lastHour.getCount("pool", 500 * MINUTE));
+        assertEquals("flat", lastHour.getTrending(500 * MINUTE));
+        assertEquals("garden", lastHour.getTrending(531 * MINUTE));
+    }
+
+    /**
+     * Test that the counts kept up to date as buckets leave the window match counts recomputed from all the
+     * searches of the window, and that the trending expression has the highest of them.
+     */
+    @Test
+    public void trendingMatchesRecount() {
+        TrendingSearches lastTenMinutes = new TrendingSearches(MINUTE, 10);
+        Random random = new Random(3);
+        // The number of searches of each expression in each minute
+        int[][] searches = new int[300][8];
+        for (int minute = 0; minute < searches.length; minute++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int expression = random.nextInt(8);
+                searches[minute][expression]++;
+                lastTenMinutes.add("expression " + expression, minute * MINUTE);
+            }
+            int maxCount = 0;
+            for (int expression = 0; expression < 8; expression++) {
+                int count = 0;
+                for (int m = Math.max(0, minute - 9); m <= minute; m++) {
+                    count += searches[m][expression];
+                }
+                assertEquals(count, lastTenMinutes.getCount("expression " + expression, minute * MINUTE));
+                maxCount = Math.max(maxCount, count);
+            }
+            String trending = lastTenMinutes.getTrending(minute * MINUTE);
+            assertEquals(maxCount, trending == null ? 0 : lastTenMinutes.getCount(trending, minute * MINUTE));
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.awt.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class represents the view of our London Property Marketplace Application.
@@ -25,8 +26,44 @@ import java.util.List;
 
 public class View extends Application {
 
+    // The number of expressions counted to find the most searched expression
+    private static final int SEARCH_COUNTS_CAPACITY = 256;
+    // The number of searches between two checkpoints of the most searched expressions
+    private static final int SEARCH_COUNTS_CHECKPOINT_INTERVAL = 50;
+    // The number of price ranges whose statistics are kept
+    private static final int STATISTICS_CACHE_SIZE = 16;
+
     private AirbnbDataLoader dataLoader = new AirbnbDataLoader();
-    private ArrayList<AirbnbListing> properties = dataLoader.load();
+    // All the loaded properties, sorted by price so that any price range can be looked up without reloading
+    // (stored outside of the heap when started with -Dairbnb.store=offheap, with their names, host names and dates of
+    // the last review read from the csv file when needed when started with -Dairbnb.text=lazy or -Dairbnb.text=cached)
+    private PriceIndex priceIndex = AirbnbDataLoader.isOffHeapSelected() ? new PriceIndex(dataLoader.loadOffHeap())
+            : AirbnbDataLoader.isLazyTextSelected()
+            ? new PriceIndex(dataLoader.loadLazyTable(AirbnbDataLoader.isTextCacheSelected()))
+            : new PriceIndex(dataLoader.loadTable());
+    private List<AirbnbListing> properties = priceIndex.getAll();
+    // All the loaded properties, by id
+    private ListingIdIndex idIndex = new ListingIdIndex(priceIndex.getAll());
+    // The search of properties by name, indexed for all the loaded properties by the first search (the index reads
+    // every name, which is not needed to start)
+    private PropertySearch propertySearch;
+    // The pre-aggregated measures of the properties by borough, room type and price, for the statistics of any price range
+    private ListingCube listingCube = new ListingCube(priceIndex);
+    // The histograms of the prices and the booking expenses of the properties, for the percentiles of any price range
+    private PriceRangeQuantiles rangeQuantiles = new PriceRangeQuantiles(priceIndex);
+    // The log of the searched expressions, written in the background
+    private SearchLog searchLog = new SearchLog(new File("search-words.txt"), 1_000_000, 5);
+    // The checkpoint of the most searched expressions, next to the log
+    private File searchCountsFile = new File("search-words.top");
+    // The most searched expressions, counted as each search happens
+    private HeavyHitters searchCounts = HeavyHitters.load(searchCountsFile, searchLog, SEARCH_COUNTS_CAPACITY);
+    // The number of searches since the last checkpoint of the most searched expressions
+    private int searchesSinceCheckpoint = 0;
+    // The searches of the last hour, by minute, and of the last day, by hour
+    private TrendingSearches searchesLastHour = new TrendingSearches(60_000, 60);
+    private TrendingSearches searchesLastDay = new TrendingSearches(3_600_000, 24);
+    // The suggestions shown while typing a search expression, built by the first lookup
+    private SuggestionTrie suggestionTrie;
 
     private BorderPane root;
     private BorderPane topBar;
@@ -59,11 +96,27 @@ public class View extends Application {
     private Statistic statMostSearchedExpression = new Statistic("Most searched expression\n(Property Search Panel)");
     private Statistic statAvgNbOfPropertiesPerBorough = new Statistic("Average number of properties per borough");
     private Statistic statMinimumExpense = new Statistic("Minimum booking expense");
+    private Statistic statTrendingLastHour = new Statistic("Trending search, last hour\n(Property Search Panel)");
+    private Statistic statTrendingLastDay = new Statistic("Trending search, last day\n(Property Search Panel)");
+    private Statistic statPricePercentiles = new Statistic("Nightly price\n(median / 90th / 99th percentile)");
+    private Statistic statExpensePercentiles = new Statistic("Booking expense\n(median / 90th / 99th percentile)");
+    private Statistic statHighestMedianBorough = new Statistic("Borough with the highest median booking expense");
+    // The percentiles of the nightly price and the booking expense of each borough, by borough
+    private Map<String, Statistic> statBoroughPercentiles = new LinkedHashMap<>();
     // Collection of all Statistic objects
     private ArrayList<Statistic> statistics = new ArrayList<>(Arrays.asList(
-            statAvgReviews, statNbOfProperties, statNbOfEntireHomeApartments, statMostExpensiveBorough, statAvgPriceViewedProperties, statMostSearchedExpression, statAvgNbOfPropertiesPerBorough, statMinimumExpense
+            statAvgReviews, statNbOfProperties, statNbOfEntireHomeApartments, statMostExpensiveBorough, statAvgPriceViewedProperties, statMostSearchedExpression, statAvgNbOfPropertiesPerBorough, statMinimumExpense,
+            statTrendingLastHour, statTrendingLastDay, statPricePercentiles, statExpensePercentiles, statHighestMedianBorough
     ));
 
+    // The statistics of the last selected price ranges, by price range
+    private Map<String, ListingStatistics> statisticsCache = new LinkedHashMap<String, ListingStatistics>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ListingStatistics> eldest) {
+            return size() > STATISTICS_CACHE_SIZE;
+        }
+    };
+
     // Collection of viewed properties
     private HashMap<String, AirbnbListing> viewedProperties = new HashMap<>();
 
@@ -76,6 +129,15 @@ public class View extends Application {
         launch(args);
     }
 
+    /**
+     * Stop the JavaFx Application, writing the searches not logged yet.
+     */
+    @Override
+    public void stop() {
+        searchLog.close();
+        searchCounts.write(searchCountsFile);
+    }
+
     /**
      * Start the JavaFx Application
      * @param primaryStage The stage of the GUI
@@ -101,10 +163,13 @@ public class View extends Application {
 
         //Initialising the "Map Panel" in the GUI
         mapInfo = new MapInfo();
+        mapInfo.setIdIndex(idIndex);
         mapPanel = new MapPanel(this, mapInfo);
 
         //Initialising the "Statistics Panel" in the GUI
+        addBoroughPercentileStatistics();
         statisticsPanel = new StatisticsPanel(statistics);
+        loadTrendingSearches();
         computeStatistics();
         computeMostSearchedExpression();
 
@@ -328,10 +393,66 @@ public class View extends Application {
      * Get the list of properties in the current selected price range.
      * @return The list of all properties in the current selected price range.
      */
-    public ArrayList<AirbnbListing> getProperties() {
+    public List<AirbnbListing> getProperties() {
         return properties;
     }
 
+    /**
+     * Get the search of properties by name, indexing the names of the properties the first time.
+     * @return The search of properties by name, over all the loaded properties
+     */
+    public synchronized PropertySearch getPropertySearch() {
+        if (propertySearch == null) {
+            propertySearch = new PropertySearch(priceIndex);
+        }
+        return propertySearch;
+    }
+
+    /**
+     * Log an expression searched by the user. The log is written in the background.
+     * @param searchWord The searched expression
+     */
+    public void logSearch(String searchWord) {
+        long time = System.currentTimeMillis();
+        String expression = SearchLog.clean(searchWord);
+        searchLog.log(expression, time);
+        searchCounts.add(expression, time);
+        searchesLastHour.add(expression, time);
+        searchesLastDay.add(expression, time);
+        searchesSinceCheckpoint++;
+        if (searchesSinceCheckpoint >= SEARCH_COUNTS_CHECKPOINT_INTERVAL) {
+            searchesSinceCheckpoint = 0;
+            CompletableFuture.runAsync(() -> searchCounts.write(searchCountsFile));
+        }
+    }
+
+    /**
+     * Get the suggestions shown while typing a search expression, building them the first time.
+     * @return The suggestions, built from the names of all the loaded properties and the previous searches
+     */
+    public synchronized SuggestionTrie getSuggestionTrie() {
+        if (suggestionTrie == null) {
+            suggestionTrie = new SuggestionTrie(getPropertySearch().getTokenIndex(), searchCounts.getCounts());
+        }
+        return suggestionTrie;
+    }
+
+    /**
+     * Get the minimum price of the selected price range.
+     * @return The minimum price, or null if it is not selected
+     */
+    public Integer getFromPrice() {
+        return fromPrice;
+    }
+
+    /**
+     * Get the maximum price of the selected price range.
+     * @return The maximum price, or null if it is not selected
+     */
+    public Integer getToPrice() {
+        return toPrice;
+    }
+
     /**
      * Add a seen property to the list of properties viewed by the user (if not already viewed).
      * @param property The property to add to the list of viewed properties
@@ -343,14 +464,12 @@ public class View extends Application {
 
 
     /**
-     * Collect the properties that correspond to the price range selected by the user, into an ArrayList.
+     * Collect the properties that correspond to the price range selected by the user, as a view of the price index.
      * Only called if the selected price range is valid.
      */
     private void computeProperties() {
-        properties = dataLoader.load();
-
         // We only keep the properties that fit in the price range
-        properties.removeIf(p -> (p.getPrice() < fromPrice || p.getPrice() > toPrice));
+        properties = priceIndex.getRange(fromPrice, toPrice);
 
         computeStatistics(); // Compute the statistics according to the current list of properties
 
@@ -363,95 +482,109 @@ public class View extends Application {
 
     /**
      * Compute the statistics according to the current list of properties (depending on selected price range).
+     * The values are only computed when a "Statistic Box" shows them, from queries of the listing cube, and the
+     * statistics of the last price ranges are kept.
      */
     private void computeStatistics() {
-        // Compute number of reviews
-        if (properties.isEmpty()) {
-            statAvgReviews.setValue(null);
-        } else {
-            double count = 0;
-            for (AirbnbListing property : properties) {
-                count += property.getNumberOfReviews();
+        // The bounds of the price range, as the suppliers may run after the next (possibly rejected) selection
+        final Integer from = fromPrice, to = toPrice;
+        statAvgReviews.setValueSupplier(() -> {
+            ListingStatistics stats = currentStatistics(from, to);
+            return stats.getCount() == 0 ? null : String.valueOf(stats.getAverageReviews());
+        });
+        statNbOfProperties.setValueSupplier(() -> String.valueOf(currentStatistics(from, to).getCount()));
+        statNbOfEntireHomeApartments.setValueSupplier(() -> String.valueOf(currentStatistics(from, to).getEntireHomeCount()));
+        statMostExpensiveBorough.setValueSupplier(() -> currentStatistics(from, to).getMostExpensiveBorough());
+        statAvgNbOfPropertiesPerBorough.setValueSupplier(() ->
+                String.valueOf(currentStatistics(from, to).getCount()/mapPanel.getLondonBoroughs().length));
+        // Minimum booking expense (price to pay to book the cheapest property)
+        statMinimumExpense.setValueSupplier(() -> {
+            AirbnbListing cheapestProperty = currentStatistics(from, to).getCheapestProperty();
+            if (cheapestProperty == null) {
+                return null;
             }
-            statAvgReviews.setValue(String.valueOf(count/properties.size()));
-        }
-
-        // Compute number of available properties
-        statNbOfProperties.setValue(String.valueOf(properties.size()));
-
-        // Compute number of entire homes and apartments
-        statNbOfEntireHomeApartments.setValue(
-                String.valueOf(properties.stream().filter(p -> (p.getRoom_type().equals("Entire home/apt"))).count())
-        );
-
-        // Compute most expensive borough
-        statMostExpensiveBorough.setValue(mostExpensiveBorough());
-
-        // Compute average number of properties per borough
-        statAvgNbOfPropertiesPerBorough.setValue(String.valueOf(properties.size()/mapPanel.getLondonBoroughs().length));
-
-        // Compute minimum booking expense (price to pay to book the cheapest property
-        AirbnbListing cheapestProperty = properties.get(0);
-        int cheapestPrice = cheapestProperty.getPrice() * cheapestProperty.getMinimumNights();
-        for (AirbnbListing property: properties) {
-            int price = property.getPrice() * property.getMinimumNights();
-            if (price < cheapestPrice) {
-                cheapestProperty = property;
-                cheapestPrice = price;
+            return "£" + currentStatistics(from, to).getMinimumExpense() + " (" + cheapestProperty.getName() + ", " + cheapestProperty.getNeighbourhood() + ")";
+        });
+        // Percentiles, estimated from the histograms of the price range (not skewed by a few outliers like the averages)
+        statPricePercentiles.setValueSupplier(() -> percentiles(rangeQuantiles.getPrices(null, from, to)));
+        statExpensePercentiles.setValueSupplier(() -> percentiles(rangeQuantiles.getExpenses(null, from, to)));
+        statHighestMedianBorough.setValueSupplier(() -> {
+            String highestBorough = null;
+            long highestMedian = -1;
+            for (String borough : rangeQuantiles.getBoroughs()) {
+                long median = rangeQuantiles.getExpenses(borough, from, to).getValueAtQuantile(0.5);
+                if (median > highestMedian) {
+                    highestBorough = borough;
+                    highestMedian = median;
+                }
             }
+            return highestBorough == null ? null : highestBorough + " (£" + highestMedian + ")";
+        });
+        for (Map.Entry<String, Statistic> entry : statBoroughPercentiles.entrySet()) {
+            String borough = entry.getKey();
+            entry.getValue().setValueSupplier(() -> {
+                QuantileHistogram prices = rangeQuantiles.getPrices(borough, from, to);
+                if (prices.getCount() == 0) {
+                    return null;
+                }
+                return "Nightly price: " + percentiles(prices)
+                        + "\nBooking expense: " + percentiles(rangeQuantiles.getExpenses(borough, from, to));
+            });
         }
-        statMinimumExpense.setValue("£" + cheapestPrice + " (" + cheapestProperty.getName() + ", " + cheapestProperty.getNeighbourhood() + ")");
 
         // Update the statistic value shown in each "Statistic Box"
-        statisticsPanel.updateStatistics();
+        updateShownStatistics();
 
     }
 
     /**
-     * Calculates the most expensive borough in London (according to current price range) by comparing
-     * the average property price per borough
-     * @return The most expensive borough
+     * Add a statistic of the percentiles of each borough of the loaded properties, after the other statistics.
      */
-    private String mostExpensiveBorough() {
-        Dictionary<String, Integer> boroughPrices = new Hashtable<>();
-
-        // Calculate the total price of each borough
-        for (AirbnbListing property: properties) {
-            String neighbourhood = property.getNeighbourhood();
-            int price = property.getPrice() * property.getMinimumNights();
-            Integer currentBoroughPrice = boroughPrices.get(neighbourhood);
-            if (currentBoroughPrice == null) {
-                boroughPrices.put(neighbourhood, price);
-            } else {
-                boroughPrices.put(neighbourhood, currentBoroughPrice + price);
-            }
+    private void addBoroughPercentileStatistics() {
+        for (String borough : rangeQuantiles.getBoroughs()) {
+            Statistic statistic = new Statistic(borough + "\n(median / 90th / 99th percentile)");
+            statBoroughPercentiles.put(borough, statistic);
+            statistics.add(statistic);
         }
+    }
 
-        // Find borough with the largest average property price
-        String mostExpensiveBorough = null;
-        double largestAveragePropertyPrice = 0;
-        Enumeration<String> boroughsEnum = boroughPrices.keys();
-        while (boroughsEnum.hasMoreElements()) {
-            String borough = boroughsEnum.nextElement();
-            double price = 0;
-            int count = 0; // Number of properties in borough
-            Integer propertyPrice = boroughPrices.get(borough);
-            while (propertyPrice != null) {
-                price += propertyPrice;
-                ++count;
-                boroughPrices.remove(borough);
-                propertyPrice = boroughPrices.get(borough);
-            }
-            double averagePropertyPrice = price / count; // Average price per property in borough
-            if (averagePropertyPrice > largestAveragePropertyPrice) {
-                mostExpensiveBorough = borough;
-                largestAveragePropertyPrice = averagePropertyPrice;
-            }
+    /**
+     * Format the median, the 90th and the 99th percentile of a histogram of amounts.
+     * @param histogram The histogram of the amounts
+     * @return The formatted percentiles, or null if the histogram is empty
+     */
+    private String percentiles(QuantileHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return null;
         }
+        return "£" + histogram.getValueAtQuantile(0.5) + " / £" + histogram.getValueAtQuantile(0.9)
+                + " / £" + histogram.getValueAtQuantile(0.99);
+    }
 
-        // Return the name of the most expensive borough
-        return mostExpensiveBorough;
+    /**
+     * Get the statistics of the properties of a price range, computing them if they are not known yet.
+     * @param from The minimum price of the price range
+     * @param to The maximum price of the price range
+     * @return The statistics of the price range
+     */
+    private ListingStatistics currentStatistics(int from, int to) {
+        String priceRange = from + "-" + to;
+        ListingStatistics stats = statisticsCache.get(priceRange);
+        if (stats == null) {
+            stats = listingCube.getStatistics(from, to);
+            statisticsCache.put(priceRange, stats);
+        }
+        return stats;
+    }
 
+    /**
+     * Update the value of the statistic shown in each "Statistic Box", if the "Statistics Panel" is shown.
+     * Otherwise the statistics are updated when the panel is shown.
+     */
+    private void updateShownStatistics() {
+        if (root.getCenter() == statisticsPanel) {
+            statisticsPanel.updateStatistics();
+        }
     }
 
     /**
@@ -467,62 +600,35 @@ public class View extends Application {
         }
 
         // Update the statistic value shown in each "Statistic Box"
-        statisticsPanel.updateStatistics();
+        updateShownStatistics();
     }
 
 
     /**
-     * Find the most searched expression by reading from the "search-words.txt" file.
-     * Then update
+     * Count the searches of the last day from the search log, for the trending searches.
+     * The searches of older logs without time are not included.
      */
-    private void computeMostSearchedExpression() {
-        List<String> searchedExpressions = readSearchedExpressionsFromFile();
-
-        // Count the number of occurrences of each expression
-        HashMap<String, Integer> expressionOccurrences = new HashMap<>();
-        for (String expression: searchedExpressions) {
-            Integer occurrences = expressionOccurrences.get(expression);
-            if (occurrences != null) {
-                expressionOccurrences.put(expression, occurrences+1);
-            } else {
-                expressionOccurrences.put(expression, 1);
-            }
-        }
-
-        // Get the most searched expression
-        String mostSearched = null;
-        Integer maxOccurrences = 0;
-        for (String expression: expressionOccurrences.keySet()) {
-            Integer occurrences = expressionOccurrences.get(expression);
-            if (occurrences > maxOccurrences) {
-                mostSearched = expression;
-                maxOccurrences = occurrences;
-            }
+    private void loadTrendingSearches() {
+        for (String line : searchLog.readLinesAfter(System.currentTimeMillis() - 24 * 3_600_000L)) {
+            String expression = SearchLog.expressionOf(line);
+            searchesLastHour.add(expression, SearchLog.timeOf(line));
+            searchesLastDay.add(expression, SearchLog.timeOf(line));
         }
-
-        // Update the value of the statistic
-        statMostSearchedExpression.setValue(mostSearched);
-
-        // Update the statistic value shown in each "Statistic Box"
-        statisticsPanel.updateStatistics();
     }
 
     /**
-     * Read the "search-words.txt" file and construct the List of the previous searched expressions.
-     * @return The list of previous searched expressions
+     * Find the most searched expression from the counts kept up to date as each search happens,
+     * and the trending expressions of the last hour and the last day. Then update the statistics.
      */
-    private List<String> readSearchedExpressionsFromFile() {
-        List<String> searchedExpressions = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader("search-words.txt"))) {
-            String line = reader.readLine();
-            while (line != null && ! line.equals("")) {
-                searchedExpressions.add(line);
-                line = reader.readLine();
-            }
-        } catch (Exception e) {
-            System.out.println(e);
-        }
-        return searchedExpressions;
+    private void computeMostSearchedExpression() {
+        // Update the value of the statistics
+        statMostSearchedExpression.setValue(searchCounts.getMostSearched());
+        long now = System.currentTimeMillis();
+        statTrendingLastHour.setValue(searchesLastHour.getTrending(now));
+        statTrendingLastDay.setValue(searchesLastDay.getTrending(now));
+
+        // Update the statistic value shown in each "Statistic Box"
+        updateShownStatistics();
     }
 
 